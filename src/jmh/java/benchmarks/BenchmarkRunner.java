@@ -0,0 +1,24 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, as the JMH main does, always adding the GC profiler so that
+ * the allocation rate is reported next to the throughput
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        // Prevent instantiation
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import issues.ticket.JiraTicketsManager;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.openjdk.jmh.annotations.*;
+import properties.ProjectConfig;
+import vcs.commit.GitCommitManager;
+import vcs.model.ModifiedMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-commit diffing: finding the methods modified by a commit of a locally generated repository, whose commits
+ * edit a few methods of typical files. Blobs are cached after the first pass, so this measures the steady state
+ * of a history walk
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommitDiffBenchmark {
+
+    private static final int FILES = 20;
+    private static final int COMMITS = 100;
+
+    private Path directory;
+    private GitCommitManager commitManager;
+    private final List<String> commitIds = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, GitAPIException {
+        directory = Files.createTempDirectory("commit-diff-benchmark");
+        generateRepository();
+
+        // Jira isn't reachable: the tickets manager starts without releases
+        ProjectConfig project = new ProjectConfig("BENCH", "http://127.0.0.1:1/", directory.toString(), List.of("BENCH"));
+        commitManager = new GitCommitManager(new JiraTicketsManager(project), project);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        commitManager.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public List<ModifiedMethod> modifiedMethods() throws IOException, GitAPIException {
+        String commitId = commitIds.get(next);
+        next = (next + 1) % commitIds.size();
+        return commitManager.getModifiedJavaMethods(commitId);
+    }
+
+    /**
+     * Commits typical files, then edits the body of a method in a few files per commit
+     */
+    private void generateRepository() throws IOException, GitAPIException {
+        Random random = new Random(42);
+        PersonIdent author = new PersonIdent("Bench", "bench@example.org");
+        List<String[]> files = new ArrayList<>();
+        for (int i = 0; i < FILES; i++)
+            files.add(JavaFixtures.typical("Class" + i, 25).split("\n", -1));
+
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            for (int c = 0; c < COMMITS; c++) {
+                for (int f = 0; f < FILES; f++) {
+                    if (c > 0 && random.nextInt(4) != 0) continue;
+                    String[] lines = files.get(f);
+                    if (c > 0) {
+                        // Change the return statement of a random method
+                        int line = random.nextInt(lines.length);
+                        while (!lines[line].startsWith("        return result")) line = (line + 1) % lines.length;
+                        lines[line] = "        return result.subList(0, Math.min(result.size(), " + c + "));";
+                    }
+                    Files.writeString(directory.resolve("Class" + f + ".java"), String.join("\n", lines));
+                }
+                git.add().addFilepattern(".").call();
+                RevCommit commit = git.commit().setMessage("BENCH-" + c + " change").setAuthor(author).setCommitter(author).call();
+                commitIds.add(commit.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import issues.JSONUtils;
+import issues.stub.JiraFixture;
+import issues.stub.JiraStubServer;
+import issues.stub.LoadProfile;
+import issues.ticket.JiraTicketsManager;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.*;
+import properties.ProjectConfig;
+import vcs.commit.GitCommitManager;
+import vcs.model.ModifiedMethod;
+import vcs.synthetic.SyntheticRepositoryGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Whole-history walks on generated repositories, at multiples of the size of BookKeeper (about 3000 commits and
+ * 1500 Java files), to track how they scale. Tickets come from a local Jira stub with one issue per four commits.
+ * Each walk is timed once per iteration, the blob cache staying warm across iterations
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class HistoryWalkBenchmark {
+
+    private static final int BASE_COMMITS = 3000;
+    private static final int BASE_FILES = 1500;
+
+    // 100 is supported too, at the cost of a long setup
+    @Param({"1", "10"})
+    private int scale;
+
+    private Path directory;
+    private JiraStubServer server;
+    private GitCommitManager commitManager;
+
+    @Setup
+    public void setUp() throws IOException {
+        // A warning per commit without a known ticket would time the console instead
+        Configurator.setLevel(GitCommitManager.class.getName(), Level.ERROR);
+
+        int tickets = BASE_COMMITS * scale / 4;
+        directory = Files.createTempDirectory("history-walk-benchmark");
+        SyntheticRepositoryGenerator generator = new SyntheticRepositoryGenerator();
+        generator.setCommits(BASE_COMMITS * scale);
+        generator.setFiles(BASE_FILES * scale);
+        generator.setTicketKeys(List.of("SYN"));
+        generator.setTickets(tickets);
+        generator.generate(directory);
+
+        server = new JiraStubServer(List.of(JiraFixture.synthetic("SYN", 60, tickets, 42)), LoadProfile.unloaded(), 0, 4);
+        ProjectConfig project = new ProjectConfig("SYN", server.getBaseUrl(), directory.toString(), List.of("SYN"));
+        JiraTicketsManager ticketsManager = new JiraTicketsManager(project, new JSONUtils(null));
+        ticketsManager.setMaxRequestsPerSecond(0);
+        commitManager = new GitCommitManager(ticketsManager, project);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        commitManager.close();
+        server.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public Map<String, ?> commitsWithTickets() {
+        commitManager.getCommitsWithTickets();
+        return commitManager.getCommitTicketsIndex();
+    }
+
+    @Benchmark
+    public Map<String, List<ModifiedMethod>> allCommitsModifiedMethods() throws IOException, GitAPIException {
+        return commitManager.getAllCommitsModifiedMethods();
+    }
+}
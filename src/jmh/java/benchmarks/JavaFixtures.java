@@ -0,0 +1,128 @@
+package benchmarks;
+
+/**
+ * Generated Java sources for the benchmarks, from typical to pathological
+ */
+public class JavaFixtures {
+
+    private JavaFixtures() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Returns the source for the given fixture name
+     *
+     * @param name one of "small", "typical", "large", "nested", "strings"
+     * @return the source
+     */
+    public static String get(String name) {
+        return switch (name) {
+            case "small" -> small();
+            case "typical" -> typical("Typical", 25);
+            case "large" -> large(10_000);
+            case "nested" -> deeplyNested(500);
+            case "strings" -> hugeStringLiterals(1024 * 1024);
+            default -> throw new IllegalArgumentException("Unknown fixture " + name);
+        };
+    }
+
+    /**
+     * A small class with a couple of methods
+     */
+    public static String small() {
+        return """
+                package fixtures;
+
+                public class Small {
+                    private int value;
+
+                    public Small(int value) {
+                        this.value = value;
+                    }
+
+                    public int getValue() {
+                        return value;
+                    }
+                }
+                """;
+    }
+
+    /**
+     * A class shaped like production code: Javadoc, annotations, generics, lambdas and inner classes
+     *
+     * @param className the name of the class
+     * @param methods   the number of methods
+     */
+    public static String typical(String className, int methods) {
+        StringBuilder source = new StringBuilder();
+        source.append("package fixtures;\n\nimport java.util.*;\nimport java.util.function.*;\n\n");
+        source.append("/**\n * A typical class { with braces in comments }\n */\n");
+        source.append("public class ").append(className).append(" {\n\n");
+        source.append("    private final Map<String, List<Integer>> index = new HashMap<>();\n\n");
+        for (int i = 0; i < methods; i++) appendMethod(source, i);
+        source.append("    private static class Entry<K extends Comparable<K>, V> {\n");
+        source.append("        K key;\n        V value;\n\n");
+        source.append("        @Override\n        public String toString() {\n            return \"{\" + key + \"=\" + value + \"}\";\n        }\n    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * A generated class with about the given number of lines
+     */
+    public static String large(int lines) {
+        return typical("Large", lines / 12);
+    }
+
+    /**
+     * A method whose body nests blocks, lambdas and anonymous classes to the given depth
+     */
+    public static String deeplyNested(int depth) {
+        StringBuilder source = new StringBuilder("package fixtures;\n\npublic class Nested {\n    void deep() {\n");
+        for (int i = 0; i < depth; i++) {
+            switch (i % 3) {
+                case 0 -> source.append("if (x > ").append(i).append(") {\n");
+                case 1 -> source.append("Runnable r").append(i).append(" = () -> {\n");
+                default -> source.append("new Object() { void m").append(i).append("(int a) {\n");
+            }
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            switch (i % 3) {
+                case 0 -> source.append("}\n");
+                case 1 -> source.append("};\n");
+                default -> source.append("} };\n");
+            }
+        }
+        source.append("    }\n\n    int after() {\n        return 1;\n    }\n}\n");
+        return source.toString();
+    }
+
+    /**
+     * A class with string literals and a text block of about the given total size, full of braces, quotes and
+     * comment markers
+     */
+    public static String hugeStringLiterals(int size) {
+        StringBuilder literal = new StringBuilder();
+        while (literal.length() < size / 2) literal.append("{ } /* // \\\" ( ) ; ");
+        StringBuilder block = new StringBuilder();
+        while (block.length() < size / 2) block.append("    } { \"\"\\\"\"\" /* not a comment */\n");
+
+        return "package fixtures;\n\npublic class Strings {\n" +
+                "    String literal() {\n        return \"" + literal + "\";\n    }\n\n" +
+                "    String block() {\n        return \"\"\"\n" + block + "            \"\"\";\n    }\n\n" +
+                "    int after() {\n        return 1;\n    }\n}\n";
+    }
+
+    private static void appendMethod(StringBuilder source, int i) {
+        source.append("    /**\n     * Method ").append(i).append(", see {@link #method").append(i + 1).append("}\n     */\n");
+        source.append("    @SuppressWarnings(\"unchecked\")\n");
+        source.append("    public <T extends Comparable<T>> List<T> method").append(i)
+                .append("(Map<String, List<T>> input, Function<? super T, String> key, int... limits) {\n");
+        source.append("        List<T> result = new ArrayList<>();\n");
+        source.append("        for (Map.Entry<String, List<T>> entry : input.entrySet()) {\n");
+        source.append("            if (entry.getKey().equals(\"}\") || limits.length > ").append(i).append(") {\n");
+        source.append("                continue; // skip '{'\n            }\n");
+        source.append("            entry.getValue().forEach(v -> { if (key.apply(v) != null) result.add(v); });\n");
+        source.append("        }\n        return result;\n    }\n\n");
+    }
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import vcs.model.MethodSpan;
+import vcs.parser.JavaMethodLocator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Method extraction: locating the methods of a source file, as done for every blob that isn't cached
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JavaMethodLocatorBenchmark {
+
+    @Param({"small", "typical", "large", "nested", "strings"})
+    private String fixture;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = JavaFixtures.get(fixture);
+    }
+
+    @Benchmark
+    public List<MethodSpan> locate() {
+        return JavaMethodLocator.locate(source);
+    }
+}
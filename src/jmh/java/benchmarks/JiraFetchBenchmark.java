@@ -0,0 +1,78 @@
+package benchmarks;
+
+import issues.JSONUtils;
+import issues.model.TicketFilter;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import issues.stub.JiraFixture;
+import issues.stub.JiraStubServer;
+import issues.stub.LoadProfile;
+import issues.ticket.JiraTicketsManager;
+import org.openjdk.jmh.annotations.*;
+import properties.ProjectConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retrieval of all the closed bugs of a project from a local Jira stub, under different simulated loads: the
+ * time of a whole fetch, pages included, without the response cache. Throttled requests are retried right
+ * away, so the throttling costs only the extra round trips
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JiraFetchBenchmark {
+
+    private static final int ISSUES = 20000;
+    private static final int PAGE_SIZE = 250;
+
+    @Param({"0", "20"})
+    private long latencyMillis;
+
+    @Param({"0", "0.05"})
+    private double throttleRate;
+
+    @Param({"1", "4"})
+    private int fetchParallelism;
+
+    private JiraStubServer server;
+    private JiraTicketsManager ticketsManager;
+    private TicketFilter filter;
+
+    @Setup
+    public void setUp() throws IOException {
+        LoadProfile profile = LoadProfile.unloaded();
+        profile.setLatencyMillis(latencyMillis);
+        profile.setJitterMillis(latencyMillis / 2);
+        profile.setThrottleRate(throttleRate);
+        profile.setRetryAfterSeconds(0);
+        server = new JiraStubServer(List.of(JiraFixture.synthetic("BENCH", 60, ISSUES, 42)), profile, 0, 16);
+
+        ProjectConfig project = new ProjectConfig("BENCH", server.getBaseUrl(), null, List.of("BENCH"));
+        ticketsManager = new JiraTicketsManager(project, new JSONUtils(null));
+        ticketsManager.setPageSize(PAGE_SIZE);
+        ticketsManager.setFetchParallelism(fetchParallelism);
+        ticketsManager.setMaxRequestsPerSecond(0);
+
+        filter = new TicketFilter();
+        filter.setTypes(List.of(TicketType.BUG));
+        filter.setStatuses(List.of(TicketStatus.CLOSED, TicketStatus.RESOLVED));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public int retrieveTickets() {
+        ticketsManager.clear();
+        ticketsManager.retrieveTickets(filter);
+        return ticketsManager.getTickets().size();
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import vcs.model.TicketReferences;
+import vcs.parser.TicketIdScanner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticket-id scanning of commit messages, as done by {@code GitCommitManager.extractTicketIds} for every commit
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketIdScannerBenchmark {
+
+    @Param({"typical", "none", "many", "long"})
+    private String message;
+
+    private TicketIdScanner scanner;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        scanner = new TicketIdScanner(List.of("BOOKKEEPER", "ZOOKEEPER", "HEDWIG"));
+        text = switch (message) {
+            case "typical" -> "BOOKKEEPER-1234: Fix NPE in LedgerHandle when closing\n\nContributed by someone (#567)";
+            case "none" -> "Update the README and bump the copyright year of the release notes";
+            case "many" -> "Merge BOOKKEEPER-1, BOOKKEEPER-22, ZOOKEEPER-333, bookkeeper-4444, ISSUE 55, #666 and HEDWIG-7";
+            case "long" -> ("Refactor the journal to batch the writes of entries to the same ledger and flush them "
+                    + "together, see the discussion on the mailing list. ").repeat(200) + "BOOKKEEPER-999";
+            default -> throw new IllegalArgumentException("Unknown message " + message);
+        };
+    }
+
+    @Benchmark
+    public TicketReferences scan() {
+        return scanner.scan(text);
+    }
+}
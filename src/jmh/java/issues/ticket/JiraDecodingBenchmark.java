@@ -0,0 +1,124 @@
+package issues.ticket;
+
+import issues.JSONUtils;
+import issues.model.ResolutionType;
+import issues.model.Ticket;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import issues.stub.JiraFixture;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import properties.ProjectConfig;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of Jira search pages into tickets, end to end (bytes to {@link Ticket}) and broken down by stage.
+ * Every benchmark handles a whole page, and is normalized per ticket
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(JiraDecodingBenchmark.PAGE_SIZE)
+public class JiraDecodingBenchmark {
+
+    static final int PAGE_SIZE = 1000;
+
+    @Param({"20", "200"})
+    private int releaseCount;
+
+    private JiraTicketsManager ticketsManager;
+    private JSONUtils jsonUtils;
+    private byte[] page;
+    private List<JSONObject> issues;
+
+    @Setup
+    public void setUp() {
+        // Jira isn't reachable: the releases are filled in by hand
+        ProjectConfig project = new ProjectConfig("BENCH", "http://127.0.0.1:1/", null, List.of("BENCH"));
+        ticketsManager = new JiraTicketsManager(project);
+        JiraFixture fixture = JiraFixture.synthetic("BENCH", releaseCount, PAGE_SIZE, 42);
+        ticketsManager.getReleasesManager().getReleases().addAll(fixture.getReleases());
+
+        jsonUtils = new JSONUtils(null);
+        page = new JSONObject().put("startAt", 0).put("maxResults", PAGE_SIZE).put("total", PAGE_SIZE)
+                .put("issues", fixture.getIssues()).toString().getBytes(StandardCharsets.UTF_8);
+        issues = new ArrayList<>();
+        jsonUtils.streamJsonArrayField(new ByteArrayInputStream(page), "issues", issues::add);
+    }
+
+    /**
+     * Bytes to tickets, as done for every page fetched
+     */
+    @Benchmark
+    public void endToEnd(Blackhole blackhole) {
+        jsonUtils.streamJsonArrayField(new ByteArrayInputStream(page), "issues",
+                issue -> blackhole.consume(ticketsManager.getTicketFromJson(issue)));
+    }
+
+    /**
+     * Stage 1: bytes to JSON objects
+     */
+    @Benchmark
+    public void parseJson(Blackhole blackhole) {
+        jsonUtils.streamJsonArrayField(new ByteArrayInputStream(page), "issues", blackhole::consume);
+    }
+
+    /**
+     * Stage 2: JSON objects to tickets, all the fields included
+     */
+    @Benchmark
+    public void buildTickets(Blackhole blackhole) {
+        for (JSONObject issue : issues) blackhole.consume(ticketsManager.getTicketFromJson(issue));
+    }
+
+    /**
+     * Stage 2a: the three timestamps of each ticket
+     */
+    @Benchmark
+    public void parseTimestamps(Blackhole blackhole) {
+        for (JSONObject issue : issues) {
+            JSONObject fields = issue.getJSONObject("fields");
+            blackhole.consume(LocalDateTime.parse(fields.getString("created"), JiraTicketsManager.formatter));
+            blackhole.consume(LocalDateTime.parse(fields.getString("updated"), JiraTicketsManager.formatter));
+            Object resolved = fields.get("resolutiondate");
+            if (resolved != JSONObject.NULL)
+                blackhole.consume(LocalDateTime.parse(resolved.toString(), JiraTicketsManager.formatter));
+        }
+    }
+
+    /**
+     * Stage 2b: type, status and resolution lookups
+     */
+    @Benchmark
+    public void lookupEnums(Blackhole blackhole) {
+        for (JSONObject issue : issues) {
+            JSONObject fields = issue.getJSONObject("fields");
+            blackhole.consume(TicketType.from(fields.getJSONObject("issuetype").getString("name")));
+            blackhole.consume(TicketStatus.fromString(fields.getJSONObject("status").getString("name")));
+            Object resolution = fields.get("resolution");
+            if (resolution != JSONObject.NULL)
+                blackhole.consume(ResolutionType.fromResolution(((JSONObject) resolution).getString("name")));
+        }
+    }
+
+    /**
+     * Stage 2c: fix and affected version lookups in the release list
+     */
+    @Benchmark
+    public void resolveVersions(Blackhole blackhole) {
+        for (JSONObject issue : issues) {
+            blackhole.consume(ticketsManager.getFixReleaseFromTicketJson(issue));
+            blackhole.consume(ticketsManager.getInjectedReleaseFromTicketJson(issue));
+        }
+    }
+}
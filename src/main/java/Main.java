@@ -1,10 +1,15 @@
 import issues.model.Ticket;
+import issues.proportion.ColdStartProportion;
 import issues.proportion.Proportion;
+import issues.proportion.ProportionEstimator;
+import issues.proportion.VersionResolution;
+import issues.proportion.VersionResolver;
 import issues.ticket.JiraTicketsManager;
 import issues.model.TicketFilter;
 import issues.model.TicketStatus;
 import issues.model.TicketType;
 import lombok.extern.slf4j.Slf4j;
+import metrics.MetricsRegistry;
 
 import java.util.Arrays;
 import java.util.List;
@@ -23,12 +28,20 @@ public class Main {
         TicketFilter ticketFilter = new TicketFilter();
         ticketFilter.setTypes(List.of(TicketType.BUG));
         ticketFilter.setStatuses(Arrays.asList(TicketStatus.CLOSED, TicketStatus.RESOLVED));
-        ticketManager.retrieveTickets(ticketFilter);
+        ticketManager.retrieveTicketsIncrementally(ticketFilter);
 
         log.info("Retrieved {} tickets for project {}", ticketManager.getTickets().size(), PROJECT_NAME);
 
         List<Ticket> tickets = ticketManager.getTickets();
 
+        VersionResolution resolution = VersionResolver.resolveAll(tickets,
+                ticketManager.getReleasesManager().getReleaseIndex());
+        ProportionEstimator estimator = new ProportionEstimator();
+        estimator.setColdStartProportion(ColdStartProportion::compute);
+        estimator.estimate(resolution);
+        ProportionEstimator.applyTo(resolution);
+        log.info("Resolved versions for {}", resolution);
+
         List<Ticket> completeTickets = Proportion.getCompleteTickets(tickets);
 
         System.out.println("Trovati " + completeTickets.size() + " ticket completi:");
@@ -39,5 +52,6 @@ public class Main {
                     ticket.getAssociatedCommits().size());
         }
 
+        MetricsRegistry.getInstance().dump();
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package dataset;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A column of a dataset: its name, its type and, for nominal columns, its allowed values
+ */
+@Getter
+@AllArgsConstructor
+public class Column {
+    private final String name;
+    private final ColumnType type;
+    private final List<String> nominalValues;
+
+    public static Column numeric(String name) {
+        return new Column(name, ColumnType.NUMERIC, List.of());
+    }
+
+    public static Column string(String name) {
+        return new Column(name, ColumnType.STRING, List.of());
+    }
+
+    public static Column nominal(String name, String... values) {
+        return new Column(name, ColumnType.NOMINAL, List.of(values));
+    }
+}
@@ -0,0 +1,10 @@
+package dataset;
+
+/**
+ * The type of a dataset column, as declared in ARFF headers
+ */
+public enum ColumnType {
+    NUMERIC,
+    STRING,
+    NOMINAL
+}
@@ -0,0 +1,165 @@
+package dataset;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dataset written by {@link ColumnarDatasetWriter}, memory-mapped. Each column is exposed as a primitive buffer
+ * over the mapped file, so loading the dataset reads no rows and allocates no object per row: numeric columns as
+ * doubles, string and nominal columns as codes into the dictionary
+ */
+public class ColumnarDataset {
+
+    @Getter
+    private final int rowCount;
+    @Getter
+    private final List<Column> columns;
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final ByteBuffer[] data;
+    private final String[] dictionary;
+    private final Map<String, Integer> codes;
+
+    private ColumnarDataset(int rowCount, List<Column> columns, ByteBuffer[] data, String[] dictionary) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+        this.data = data;
+        this.dictionary = dictionary;
+        this.codes = new HashMap<>(dictionary.length * 2);
+        for (int i = 0; i < columns.size(); i++) columnIndex.put(columns.get(i).getName(), i);
+        for (int i = 0; i < dictionary.length; i++) codes.put(dictionary[i], i);
+    }
+
+    /**
+     * Maps a dataset file
+     *
+     * @param path the file
+     * @return the dataset
+     * @throws IOException if the file can't be read or isn't a columnar dataset
+     */
+    public static ColumnarDataset open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The header is at the start of the file; each column is mapped on its own, at a long offset
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (header.getInt() != ColumnarDatasetWriter.MAGIC) throw new IOException("Not a columnar dataset: " + path);
+            int version = header.getInt();
+            if (version != ColumnarDatasetWriter.VERSION) throw new IOException("Unsupported columnar dataset version " + version + ": " + path);
+            long rows = header.getLong();
+            if (rows > Integer.MAX_VALUE) throw new IOException("Too many rows to map: " + rows);
+
+            int columnCount = header.getInt();
+            List<Column> columns = new ArrayList<>(columnCount);
+            ByteBuffer[] data = new ByteBuffer[columnCount];
+            ColumnType[] types = ColumnType.values();
+            for (int i = 0; i < columnCount; i++) {
+                String name = readString(header);
+                ColumnType type = types[header.get()];
+                long offset = header.getLong();
+                long length = header.getLong();
+                if (offset < 0 || length < 0 || offset + length > size)
+                    throw new IOException("Column " + name + " lies outside the file: " + path);
+                if (length > Integer.MAX_VALUE) throw new IOException("Column " + name + " is too large to map: " + length + " bytes");
+                columns.add(new Column(name, type, List.of()));
+                data[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            String[] dictionary = new String[header.getInt()];
+            for (int i = 0; i < dictionary.length; i++) dictionary[i] = readString(header);
+
+            return new ColumnarDataset((int) rows, List.copyOf(columns), data, dictionary);
+        }
+    }
+
+    /**
+     * @return the index of the column with the given name
+     * @throws IllegalArgumentException if there's no such column
+     */
+    public int getColumnIndex(String name) {
+        Integer index = columnIndex.get(name);
+        if (index == null) throw new IllegalArgumentException("No column named " + name);
+        return index;
+    }
+
+    /**
+     * Returns a numeric column, missing values being NaN
+     *
+     * @param name the name of the column
+     * @return a read-only view of the column, one double per row
+     */
+    public DoubleBuffer getNumericColumn(String name) {
+        int index = getColumnIndex(name);
+        checkType(index, true);
+        return data[index].duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * Returns a string or nominal column as dictionary codes, missing values being -1
+     *
+     * @param name the name of the column
+     * @return a read-only view of the column, one code per row
+     */
+    public IntBuffer getCodeColumn(String name) {
+        int index = getColumnIndex(name);
+        checkType(index, false);
+        return data[index].duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Copies a numeric column into an array
+     */
+    public double[] getNumericArray(String name) {
+        double[] values = new double[rowCount];
+        getNumericColumn(name).get(values);
+        return values;
+    }
+
+    /**
+     * Copies a string or nominal column into an array of codes
+     */
+    public int[] getCodeArray(String name) {
+        int[] values = new int[rowCount];
+        getCodeColumn(name).get(values);
+        return values;
+    }
+
+    /**
+     * @return the string with the given code, or null for the missing code
+     */
+    public String getString(int code) {
+        return code == ColumnarDatasetWriter.MISSING_CODE ? null : dictionary[code];
+    }
+
+    /**
+     * @return the code of the given string, or -1 if it doesn't appear in the dataset
+     */
+    public int getCode(String value) {
+        return codes.getOrDefault(value, ColumnarDatasetWriter.MISSING_CODE);
+    }
+
+    private void checkType(int index, boolean numeric) {
+        if ((columns.get(index).getType() == ColumnType.NUMERIC) != numeric)
+            throw new IllegalArgumentException("Column " + columns.get(index).getName() + " is " + columns.get(index).getType());
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
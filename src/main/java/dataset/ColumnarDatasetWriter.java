@@ -0,0 +1,172 @@
+package dataset;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a dataset in a columnar binary format that {@link ColumnarDataset} memory-maps. Numeric columns are stored
+ * as doubles and string and nominal columns as int codes into a dictionary shared by the whole file, each column
+ * contiguous and 8-byte aligned. Missing values are NaN and -1.
+ * <p>
+ * Rows are streamed: each column is spilled to its own temporary file, and the columns are appended after the
+ * header when the writer is closed.
+ * <p>
+ * Layout, little-endian: magic, version, row count, column count; for each column its name, type, offset and
+ * length; the dictionary size and its strings; padding; the columns. Strings are an int length and UTF-8 bytes
+ */
+public class ColumnarDatasetWriter implements RowWriter {
+
+    public static final String EXTENSION = ".cds";
+    static final int MAGIC = 0x31534443; // "CDS1"
+    static final int VERSION = 1;
+    static final int MISSING_CODE = -1;
+
+    private static final int SPILL_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    @Getter
+    private final List<Column> columns;
+    private final Path[] spillFiles;
+    private final FileChannel[] spills;
+    private final ByteBuffer[] buffers;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    @Getter
+    private long rows;
+
+    /**
+     * Opens a writer
+     *
+     * @param path    the file to write, replaced when the writer is closed
+     * @param columns the columns of the dataset
+     * @throws IOException if the temporary files can't be created
+     */
+    public ColumnarDatasetWriter(Path path, List<Column> columns) throws IOException {
+        this.path = path;
+        this.columns = List.copyOf(columns);
+        this.spillFiles = new Path[columns.size()];
+        this.spills = new FileChannel[columns.size()];
+        this.buffers = new ByteBuffer[columns.size()];
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                spillFiles[i] = Files.createTempFile(parent, path.getFileName().toString(), ".col" + i);
+                spills[i] = FileChannel.open(spillFiles[i], StandardOpenOption.WRITE, StandardOpenOption.READ);
+                buffers[i] = ByteBuffer.allocate(SPILL_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException e) {
+            deleteSpills();
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        if (values.length != columns.size())
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer buffer = buffers[i];
+            if (buffer.remaining() < Double.BYTES) flush(i);
+
+            Object value = values[i];
+            if (columns.get(i).getType() == ColumnType.NUMERIC) {
+                buffer.putDouble(value == null ? Double.NaN : ((Number) value).doubleValue());
+            } else {
+                buffer.putInt(value == null ? MISSING_CODE : codeOf(value.toString()));
+            }
+        }
+        rows++;
+    }
+
+    /**
+     * Writes the header and the dictionary, then appends the columns
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (int i = 0; i < columns.size(); i++) flush(i);
+
+            List<byte[]> names = new ArrayList<>();
+            for (Column column : columns) names.add(column.getName().getBytes(StandardCharsets.UTF_8));
+            List<byte[]> strings = new ArrayList<>();
+            for (String string : dictionary) strings.add(string.getBytes(StandardCharsets.UTF_8));
+
+            long headerSize = 4 + 4 + 8 + 4;
+            for (byte[] name : names) headerSize += 4 + name.length + 1 + 8 + 8;
+            headerSize += 4;
+            for (byte[] string : strings) headerSize += 4 + string.length;
+            long dataStart = align(headerSize);
+
+            ByteBuffer header = ByteBuffer.allocate((int) dataStart).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(rows).putInt(columns.size());
+            long offset = dataStart;
+            for (int i = 0; i < columns.size(); i++) {
+                long length = spills[i].size();
+                header.putInt(names.get(i).length).put(names.get(i));
+                header.put((byte) columns.get(i).getType().ordinal());
+                header.putLong(offset).putLong(length);
+                offset = align(offset + length);
+            }
+            header.putInt(strings.size());
+            for (byte[] string : strings) header.putInt(string.length).put(string);
+            header.position(header.capacity()).flip();
+
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) out.write(header);
+                for (int i = 0; i < columns.size(); i++) {
+                    long length = spills[i].size();
+                    for (long done = 0; done < length; )
+                        done += spills[i].transferTo(done, length - done, out);
+                    // Pad to the next column
+                    out.write(ByteBuffer.allocate((int) (align(length) - length)));
+                }
+            }
+        } finally {
+            deleteSpills();
+        }
+    }
+
+    private int codeOf(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            codes.put(value, code);
+            dictionary.add(value);
+        }
+        return code;
+    }
+
+    private void flush(int column) throws IOException {
+        ByteBuffer buffer = buffers[column];
+        buffer.flip();
+        while (buffer.hasRemaining()) spills[column].write(buffer);
+        buffer.clear();
+    }
+
+    private void deleteSpills() throws IOException {
+        for (int i = 0; i < spillFiles.length; i++) {
+            if (spills[i] != null) spills[i].close();
+            if (spillFiles[i] != null) Files.deleteIfExists(spillFiles[i]);
+        }
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,24 @@
+package dataset;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The formats a dataset can be written in
+ */
+public enum DatasetFormat {
+    CSV,
+    ARFF;
+
+    /**
+     * Returns the format matching the extension of a file, ignoring a trailing ".gz"
+     *
+     * @param path the path of the file, e.g. "BOOKKEEPER.arff.gz"
+     * @return the matching format, or CSV if the extension is unknown
+     */
+    public static DatasetFormat from(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) name = name.substring(0, name.length() - 3);
+        return name.endsWith(".arff") ? ARFF : CSV;
+    }
+}
@@ -0,0 +1,198 @@
+package dataset;
+
+import lombok.Getter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a dataset to a CSV or ARFF file one row at a time, so that the dataset is never held in memory.
+ * Output goes through a large buffer straight to the file channel, optionally gzipped. Null values are written
+ * as missing: empty in CSV, "?" in ARFF
+ */
+public class DatasetWriter implements RowWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    @Getter
+    private final DatasetFormat format;
+    @Getter
+    private final List<Column> columns;
+    @Getter
+    private long rows;
+
+    /**
+     * Opens a writer choosing the format from the file extension, and gzipping if the name ends with ".gz"
+     *
+     * @param path     the file to write, replaced if it exists
+     * @param relation the name of the dataset, used by ARFF
+     * @param columns  the columns of the dataset
+     * @return the writer, with the header already written
+     * @throws IOException if the file can't be written
+     */
+    public static DatasetWriter open(Path path, String relation, List<Column> columns) throws IOException {
+        boolean gzip = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+        return new DatasetWriter(path, DatasetFormat.from(path), gzip, relation, columns);
+    }
+
+    /**
+     * Opens a writer
+     *
+     * @param path     the file to write, replaced if it exists
+     * @param format   the format of the file
+     * @param gzip     true to gzip the output
+     * @param relation the name of the dataset, used by ARFF
+     * @param columns  the columns of the dataset
+     * @throws IOException if the file can't be written
+     */
+    public DatasetWriter(Path path, DatasetFormat format, boolean gzip, String relation, List<Column> columns) throws IOException {
+        this.format = format;
+        this.columns = List.copyOf(columns);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = Channels.newOutputStream(channel);
+        try {
+            if (gzip) out = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        try {
+            if (format == DatasetFormat.ARFF) writeArffHeader(relation);
+            else writeCsvHeader();
+        } catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        if (values.length != columns.size())
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            writeValue(columns.get(i), values[i]);
+        }
+        writer.write('\n');
+        rows++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeCsvHeader() throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(',');
+            writeCsvText(columns.get(i).getName());
+        }
+        writer.write('\n');
+    }
+
+    private void writeArffHeader(String relation) throws IOException {
+        writer.write("@relation ");
+        writeArffText(relation);
+        writer.write("\n\n");
+        for (Column column : columns) {
+            writer.write("@attribute ");
+            writeArffText(column.getName());
+            writer.write(' ');
+            switch (column.getType()) {
+                case NUMERIC -> writer.write("numeric");
+                case STRING -> writer.write("string");
+                case NOMINAL -> {
+                    writer.write('{');
+                    for (int i = 0; i < column.getNominalValues().size(); i++) {
+                        if (i > 0) writer.write(',');
+                        writeArffText(column.getNominalValues().get(i));
+                    }
+                    writer.write('}');
+                }
+            }
+            writer.write('\n');
+        }
+        writer.write("\n@data\n");
+    }
+
+    private void writeValue(Column column, Object value) throws IOException {
+        if (value == null) {
+            if (format == DatasetFormat.ARFF) writer.write('?');
+            return;
+        }
+        if (column.getType() == ColumnType.NUMERIC && value instanceof Number) {
+            writer.write(value.toString());
+            return;
+        }
+        if (format == DatasetFormat.ARFF) writeArffText(value.toString());
+        else writeCsvText(value.toString());
+    }
+
+    /**
+     * Writes a CSV field, quoting it if it contains a separator, a quote or a line break
+     */
+    private void writeCsvText(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Writes an ARFF value or name, single-quoting it if it contains characters with a meaning in ARFF
+     */
+    private void writeArffText(String text) throws IOException {
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = Character.isWhitespace(c) || ",'\"{}%?\\".indexOf(c) >= 0;
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('\'');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\'', '\\' -> {
+                    writer.write('\\');
+                    writer.write(c);
+                }
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> writer.write(c);
+            }
+        }
+        writer.write('\'');
+    }
+}
@@ -0,0 +1,62 @@
+package dataset;
+
+import lombok.Getter;
+
+/**
+ * A walk-forward fold: the rows of the releases before the test release train, the rows of the test release
+ * test. Both sets are index ranges over the release-ordered dataset, so no row is copied
+ */
+@Getter
+public class Fold {
+
+    // 1-based number of the release tested
+    private final int testRelease;
+    // Training rows are [0, trainEnd), test rows are [testStart, testEnd)
+    private final int trainEnd;
+    private final int testStart;
+    private final int testEnd;
+
+    private final int[] buggySince;
+
+    Fold(int testRelease, int trainEnd, int testStart, int testEnd, int[] buggySince) {
+        this.testRelease = testRelease;
+        this.trainEnd = trainEnd;
+        this.testStart = testStart;
+        this.testEnd = testEnd;
+        this.buggySince = buggySince;
+    }
+
+    public int getTrainSize() {
+        return trainEnd;
+    }
+
+    public int getTestSize() {
+        return testEnd - testStart;
+    }
+
+    /**
+     * Labels a training row with the tickets resolved before the test release only, so that the training set
+     * doesn't know about bugs that were still hidden at the time
+     *
+     * @param row the index of a row in [0, trainEnd)
+     * @return true if the row is known to be buggy before the test release
+     */
+    public boolean isTrainBuggy(int row) {
+        return buggySince[row] <= testRelease;
+    }
+
+    /**
+     * Labels a test row with all the tickets
+     *
+     * @param row the index of a row in [testStart, testEnd)
+     * @return true if the row is buggy
+     */
+    public boolean isTestBuggy(int row) {
+        return buggySince[row] != WalkForwardSplitter.NEVER;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("release %d: train [0, %d), test [%d, %d)", testRelease, trainEnd, testStart, testEnd);
+    }
+}
@@ -0,0 +1,111 @@
+package dataset;
+
+import vcs.commit.BugginessLabels;
+import vcs.model.MethodMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes the method metrics dataset as the rows are produced, e.g. by passing it as the consumer of
+ * {@code ReleaseDatasetBuilder.build}, to one or more files at once (say CSV for inspection and columnar
+ * binary for the classifiers). Rows are labeled with the given bugginess labels, if any
+ */
+public class MethodDatasetWriter implements Consumer<MethodMetrics>, Closeable {
+
+    public static final List<Column> COLUMNS = List.of(
+            Column.string("Release"),
+            Column.numeric("ReleaseNumber"),
+            Column.string("File"),
+            Column.string("Method"),
+            Column.numeric("LOC"),
+            Column.numeric("Revisions"),
+            Column.numeric("AddedLines"),
+            Column.numeric("DeletedLines"),
+            Column.numeric("Churn"),
+            Column.numeric("MaxChurn"),
+            Column.numeric("Authors"),
+            Column.numeric("AgeDays"),
+            Column.numeric("Fixes"),
+            Column.nominal("Buggy", "yes", "no"));
+
+    private final List<RowWriter> writers = new ArrayList<>();
+    private final BugginessLabels labels;
+
+    /**
+     * Opens the dataset file, in the format given by its extension
+     *
+     * @param path    the file, e.g. "BOOKKEEPER.csv", "BOOKKEEPER.arff.gz" or "BOOKKEEPER.cds"
+     * @param project the name of the project, used as ARFF relation
+     * @param labels  the bugginess labels, or null to leave the label missing
+     * @throws IOException if the file can't be written
+     */
+    public MethodDatasetWriter(Path path, String project, BugginessLabels labels) throws IOException {
+        this(List.of(path), project, labels);
+    }
+
+    /**
+     * Opens several dataset files, each in the format given by its extension, receiving the same rows
+     *
+     * @param paths   the files
+     * @param project the name of the project, used as ARFF relation
+     * @param labels  the bugginess labels, or null to leave the label missing
+     * @throws IOException if a file can't be written
+     */
+    public MethodDatasetWriter(List<Path> paths, String project, BugginessLabels labels) throws IOException {
+        this.labels = labels;
+        try {
+            for (Path path : paths) writers.add(RowWriter.open(path, project, COLUMNS));
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a row
+     *
+     * @throws UncheckedIOException if the row can't be written
+     */
+    @Override
+    public void accept(MethodMetrics row) {
+        Object[] values = {row.getRelease(), row.getReleaseNumber(), row.getFilePath(), row.getSignature(),
+                row.getLoc(), row.getRevisions(), row.getAddedLines(), row.getDeletedLines(), row.getChurn(),
+                row.getMaxChurn(), row.getAuthors(), row.getAgeDays(), row.getFixes(),
+                labels == null ? null : labels.isBuggy(row) ? "yes" : "no"};
+        try {
+            for (RowWriter writer : writers) writer.writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the number of rows written so far
+     */
+    public long getRows() {
+        return writers.isEmpty() ? 0 : writers.get(0).getRows();
+    }
+
+    /**
+     * Closes all the files, even if closing one of them fails
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (RowWriter writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
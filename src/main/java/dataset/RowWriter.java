@@ -0,0 +1,42 @@
+package dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A dataset output receiving rows one at a time
+ */
+public interface RowWriter extends Closeable {
+
+    /**
+     * Writes a row
+     *
+     * @param values the values, one per column, in column order; null for a missing value
+     * @throws IOException if the row can't be written
+     */
+    void writeRow(Object... values) throws IOException;
+
+    /**
+     * @return the number of rows written so far
+     */
+    long getRows();
+
+    /**
+     * Opens a writer for the file, choosing the format from its extension: columnar binary for
+     * {@value ColumnarDatasetWriter#EXTENSION}, otherwise CSV or ARFF as {@link DatasetWriter#open} does
+     *
+     * @param path     the file to write, replaced if it exists
+     * @param relation the name of the dataset
+     * @param columns  the columns of the dataset
+     * @return the writer
+     * @throws IOException if the file can't be written
+     */
+    static RowWriter open(Path path, String relation, List<Column> columns) throws IOException {
+        if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ColumnarDatasetWriter.EXTENSION))
+            return new ColumnarDatasetWriter(path, columns);
+        return DatasetWriter.open(path, relation, columns);
+    }
+}
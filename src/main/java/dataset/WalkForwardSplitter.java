@@ -0,0 +1,85 @@
+package dataset;
+
+import vcs.commit.BugginessLabels;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a dataset sorted by release into walk-forward folds: each release but the first is tested on a model
+ * trained on all the releases before it. Folds are index ranges over the dataset, and all of them are found in a
+ * single scan of the release numbers.
+ * <p>
+ * To avoid snooping, the training rows of a fold are labeled only with the tickets resolved before its test
+ * release: each row keeps since which release it's known to be buggy, so the labels of every fold come from
+ * the same array
+ */
+public class WalkForwardSplitter {
+
+    public static final int NEVER = BugginessLabels.NEVER;
+
+    private final int[] releaseNumbers;
+    private final int[] buggySince;
+
+    /**
+     * @param releaseNumbers the 1-based release number of each row, non-decreasing
+     * @param buggySince     for each row, the first release knowing it's buggy, or {@link #NEVER}
+     */
+    public WalkForwardSplitter(int[] releaseNumbers, int[] buggySince) {
+        if (releaseNumbers.length != buggySince.length)
+            throw new IllegalArgumentException("Expected one label per row");
+        for (int i = 1; i < releaseNumbers.length; i++)
+            if (releaseNumbers[i] < releaseNumbers[i - 1])
+                throw new IllegalArgumentException("Rows are not sorted by release at row " + i);
+        this.releaseNumbers = releaseNumbers;
+        this.buggySince = buggySince;
+    }
+
+    /**
+     * Creates a splitter over a method dataset written by {@link MethodDatasetWriter}, labeling it with the given
+     * labels in one pass over its rows
+     *
+     * @param dataset the dataset
+     * @param labels  the bugginess labels the dataset was built with
+     * @return the splitter
+     */
+    public static WalkForwardSplitter of(ColumnarDataset dataset, BugginessLabels labels) {
+        int rows = dataset.getRowCount();
+        DoubleBuffer releases = dataset.getNumericColumn("ReleaseNumber");
+        IntBuffer files = dataset.getCodeColumn("File");
+        IntBuffer methods = dataset.getCodeColumn("Method");
+
+        int[] releaseNumbers = new int[rows];
+        int[] buggySince = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            releaseNumbers[i] = (int) releases.get(i);
+            buggySince[i] = labels.buggySince(dataset.getString(files.get(i)), dataset.getString(methods.get(i)), releaseNumbers[i]);
+        }
+        return new WalkForwardSplitter(releaseNumbers, buggySince);
+    }
+
+    /**
+     * @return the folds, in release order
+     */
+    public List<Fold> getFolds() {
+        List<Fold> folds = new ArrayList<>();
+        int start = 0;
+        while (start < releaseNumbers.length) {
+            int end = start;
+            while (end < releaseNumbers.length && releaseNumbers[end] == releaseNumbers[start]) end++;
+            // The first release has nothing to train on
+            if (start > 0) folds.add(new Fold(releaseNumbers[start], start, start, end, buggySince));
+            start = end;
+        }
+        return folds;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return releaseNumbers.length;
+    }
+}
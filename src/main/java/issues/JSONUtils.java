@@ -1,15 +1,78 @@
 package issues;
 
+import issues.cache.CachedResponse;
+import issues.cache.DiskResponseCache;
+import issues.cache.ResponseCache;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
+import properties.PropertiesManager;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
 
+@Slf4j
 public class JSONUtils {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_CACHE_TTL_MINUTES = 24 * 60L;
+    private static final long DEFAULT_CACHE_MAX_MEGABYTES = 512L;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int MAX_RETRIES = 5;
+    private static final long INITIAL_BACKOFF_MILLIS = 500L;
+
+    private static final Timer RATE_LIMIT_TIMER = MetricsRegistry.getInstance().timer("jira_rate_limit_wait_seconds", "Time waited for the per-host rate limit before a request");
+    private static final Counter REQUESTS = MetricsRegistry.getInstance().counter("http_requests_total", "Requests sent to the REST APIs, retries included");
+    private static final Counter THROTTLED = MetricsRegistry.getInstance().counter("http_throttled_total", "Requests rejected with 429 Too Many Requests");
+    private static final Counter CACHE_HITS = MetricsRegistry.getInstance().counter("http_cache_hits_total", "Responses served fresh from the response cache");
+    private static final Counter CACHE_REVALIDATIONS = MetricsRegistry.getInstance().counter("http_cache_revalidations_total", "Stale cached responses confirmed by the server");
+    private static final Counter CACHE_MISSES = MetricsRegistry.getInstance().counter("http_cache_misses_total", "Responses fetched in full while a cache was set");
+
+    static {
+        MetricsRegistry.getInstance().gauge("http_cache_hit_rate", "Share of cached lookups served without a full fetch", () -> {
+            double served = CACHE_HITS.getCount() + CACHE_REVALIDATIONS.getCount();
+            double lookups = served + CACHE_MISSES.getCount();
+            return lookups == 0 ? Double.NaN : served / lookups;
+        });
+    }
+
+    private final ResponseCache cache;
+
+    // Maximum requests per second to a host, applied only to the requests that reach the network
+    @Getter
+    @Setter
+    private double maxRequestsPerSecond;
+
+    /**
+     * Creates the utils with the response cache configured in the properties, if any
+     */
+    public JSONUtils() {
+        this(createConfiguredCache());
+    }
+
+    /**
+     * Creates the utils with the given response cache
+     *
+     * @param cache the cache to use, or null to always fetch from the network
+     */
+    public JSONUtils(ResponseCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Given the URL of a REST API, retrieves the JSON response from the API and returns it as a JSONObject
      *
@@ -19,13 +82,107 @@ public class JSONUtils {
      * @throws JSONException    in case of errors while parsing the response
      */
     public JSONObject readJsonFromUrl(String url) throws IOException, JSONException {
-        try (InputStream is = new URL(url).openStream()) {
+        try (InputStream is = openStream(url, true)) {
             BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
             String jsonText = readAll(rd);
             return new JSONObject(jsonText);
         }
     }
 
+    /**
+     * Given the URL of a REST API returning a JSON object, streams the elements of one of its array fields to
+     * the consumer as they are parsed, without materializing the whole response. The other fields of the object
+     * are collected and returned
+     *
+     * @param url               the URL of the REST API
+     * @param arrayField        the name of the array field to stream, e.g. "issues"
+     * @param elementConsumer   the consumer receiving each element of the array, in order
+     * @return                  the other fields of the response
+     * @throws IOException      in case of errors while reading the response
+     * @throws JSONException    in case of errors while parsing the response
+     */
+    public JSONObject streamJsonArrayFieldFromUrl(String url, String arrayField, Consumer<JSONObject> elementConsumer) throws IOException, JSONException {
+        return streamJsonArrayFieldFromUrl(url, arrayField, elementConsumer, true);
+    }
+
+    /**
+     * Streams the elements of one of the array fields of the response to the consumer, as
+     * {@link #streamJsonArrayFieldFromUrl(String, String, Consumer)} does, optionally bypassing the response cache
+     *
+     * @param url               the URL of the REST API
+     * @param arrayField        the name of the array field to stream, e.g. "issues"
+     * @param elementConsumer   the consumer receiving each element of the array, in order
+     * @param useCache          false to always fetch from the network, neither reading nor storing the response
+     * @return                  the other fields of the response
+     * @throws IOException      in case of errors while reading the response
+     * @throws JSONException    in case of errors while parsing the response
+     */
+    public JSONObject streamJsonArrayFieldFromUrl(String url, String arrayField, Consumer<JSONObject> elementConsumer, boolean useCache) throws IOException, JSONException {
+        try (InputStream is = openStream(url, useCache)) {
+            return streamJsonArrayField(is, arrayField, elementConsumer);
+        }
+    }
+
+    /**
+     * Streams the elements of one of the array fields of the JSON object read from the stream to the consumer,
+     * as {@link #streamJsonArrayFieldFromUrl} does. The stream is not closed
+     *
+     * @param is                the stream of the JSON object, UTF-8 encoded
+     * @param arrayField        the name of the array field to stream, e.g. "issues"
+     * @param elementConsumer   the consumer receiving each element of the array, in order
+     * @return                  the other fields of the object
+     * @throws JSONException    in case of errors while reading or parsing the object
+     */
+    public JSONObject streamJsonArrayField(InputStream is, String arrayField, Consumer<JSONObject> elementConsumer) throws JSONException {
+        BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JSONTokener tokener = new JSONTokener(rd);
+        JSONObject otherFields = new JSONObject();
+
+        if (tokener.nextClean() != '{') throw tokener.syntaxError("A JSONObject text must begin with '{'");
+        if (tokener.nextClean() == '}') return otherFields;
+        tokener.back();
+
+        while (true) {
+            char quote = tokener.nextClean();
+            if (quote != '"' && quote != '\'') throw tokener.syntaxError("Expected a quoted key");
+            String key = tokener.nextString(quote);
+            if (tokener.nextClean() != ':') throw tokener.syntaxError("Expected a ':' after a key");
+
+            if (key.equals(arrayField)) streamArray(tokener, elementConsumer);
+            else otherFields.put(key, tokener.nextValue());
+
+            char c = tokener.nextClean();
+            if (c == '}') return otherFields;
+            if (c != ',') throw tokener.syntaxError("Expected a ',' or '}'");
+        }
+    }
+
+    /**
+     * Parses a JSON array of objects one element at a time, passing each element to the consumer
+     */
+    private void streamArray(JSONTokener tokener, Consumer<JSONObject> elementConsumer) throws JSONException {
+        char c = tokener.nextClean();
+        if (c == 'n') {
+            // "null" instead of an array
+            tokener.back();
+            tokener.nextValue();
+            return;
+        }
+        if (c != '[') throw tokener.syntaxError("A JSONArray text must start with '['");
+        if (tokener.nextClean() == ']') return;
+        tokener.back();
+
+        while (true) {
+            Object element = tokener.nextValue();
+            if (!(element instanceof JSONObject object)) throw tokener.syntaxError("Expected a JSONObject element");
+            elementConsumer.accept(object);
+
+            c = tokener.nextClean();
+            if (c == ']') return;
+            if (c != ',') throw tokener.syntaxError("Expected a ',' or ']'");
+        }
+    }
+
     /**
      * Given the URL of a REST API, retrieves the JSON response from the API and returns it as a JSONArray
      *
@@ -35,13 +192,131 @@ public class JSONUtils {
      * @throws JSONException    in case of errors while parsing the response
      */
     public JSONArray readJsonArrayFromUrl(String url) throws IOException, JSONException {
-        try (InputStream is = new URL(url).openStream()) {
+        try (InputStream is = openStream(url, true)) {
             BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
             String jsonText = readAll(rd);
             return new JSONArray(jsonText);
         }
     }
 
+    /**
+     * Opens the body of the response for the URL, serving it from the cache when still fresh and
+     * revalidating it with the server (ETag / Last-Modified) when stale
+     *
+     * @param url      the URL to read
+     * @param useCache false to bypass the cache
+     * @return         a stream over the response body
+     * @throws IOException  in case of errors while fetching the response
+     */
+    private InputStream openStream(String url, boolean useCache) throws IOException {
+        ResponseCache cache = useCache ? this.cache : null;
+        CachedResponse cached = cache == null ? null : cache.get(url);
+        Instant now = Instant.now();
+        if (cached != null && cached.getStoredAt().plus(cache.getTimeToLive()).isAfter(now)) {
+            CACHE_HITS.increment();
+            return new ByteArrayInputStream(cached.getBody());
+        }
+
+        URLConnection connection = connect(url, cached);
+        if (!(connection instanceof HttpURLConnection http)) return connection.getInputStream();
+        if (cache == null) return http.getInputStream();
+
+        try {
+            if (cached != null && http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                cache.put(url, cached.revalidatedAt(now));
+                CACHE_REVALIDATIONS.increment();
+                return new ByteArrayInputStream(cached.getBody());
+            }
+
+            CACHE_MISSES.increment();
+            byte[] body;
+            try (InputStream is = http.getInputStream()) {
+                body = is.readAllBytes();
+            }
+            cache.put(url, new CachedResponse(body, http.getHeaderField("ETag"), http.getHeaderField("Last-Modified"), now));
+            return new ByteArrayInputStream(body);
+        } finally {
+            http.disconnect();
+        }
+    }
+
+    /**
+     * Opens a connection to the URL, conditional on the cached response if any, once the per-host rate limit
+     * allows it. Requests rejected with
+     * 429 Too Many Requests are retried up to {@value #MAX_RETRIES} times, after the delay asked by the
+     * Retry-After header or else after an exponential backoff
+     */
+    private URLConnection connect(String url, CachedResponse cached) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            long waitStart = RATE_LIMIT_TIMER.start();
+            try {
+                RateLimiter.forUrl(url, maxRequestsPerSecond).acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to fetch " + url, e);
+            }
+            RATE_LIMIT_TIMER.stop(waitStart);
+
+            URLConnection connection = new URL(url).openConnection();
+            if (!(connection instanceof HttpURLConnection http)) return connection;
+
+            if (cached != null) {
+                if (cached.getETag() != null) http.setRequestProperty("If-None-Match", cached.getETag());
+                if (cached.getLastModified() != null) http.setRequestProperty("If-Modified-Since", cached.getLastModified());
+            }
+            REQUESTS.increment();
+            if (http.getResponseCode() != HTTP_TOO_MANY_REQUESTS) return http;
+            THROTTLED.increment();
+            if (attempt == MAX_RETRIES) return http;
+
+            long delayMillis = retryDelayMillis(http.getHeaderField("Retry-After"), attempt);
+            try (InputStream error = http.getErrorStream()) {
+                // Drained so that the connection can be reused
+                if (error != null) error.readAllBytes();
+            }
+            log.debug("Throttled on {}, retrying in {} ms", url, delayMillis);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to retry " + url, e);
+            }
+        }
+    }
+
+    private static long retryDelayMillis(String retryAfter, int attempt) {
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException e) {
+                // An HTTP date: fall back to the backoff
+            }
+        }
+        return INITIAL_BACKOFF_MILLIS << attempt;
+    }
+
+    /**
+     * Builds the disk cache from the "info.cache.*" properties; the cache is disabled when no directory is set
+     */
+    private static ResponseCache createConfiguredCache() {
+        PropertiesManager properties = PropertiesManager.getInstance();
+        String directory = properties.getProperty("info.cache.dir");
+        if (directory == null || directory.isBlank()) return null;
+
+        String ttl = properties.getProperty("info.cache.ttlMinutes");
+        String maxSize = properties.getProperty("info.cache.maxMegabytes");
+        try {
+            Duration timeToLive = Duration.ofMinutes(ttl == null || ttl.isBlank() ? DEFAULT_CACHE_TTL_MINUTES : Long.parseLong(ttl.trim()));
+            // Fresh entries are served without asking the server: make stale data visible in the logs
+            log.warn("Response cache enabled in {}: Jira responses up to {} minutes old are served as is", directory.trim(), timeToLive.toMinutes());
+            return new DiskResponseCache(Path.of(directory.trim()), timeToLive,
+                    (maxSize == null || maxSize.isBlank() ? DEFAULT_CACHE_MAX_MEGABYTES : Long.parseLong(maxSize.trim())) * 1024 * 1024);
+        } catch (IOException e) {
+            log.error("Unable to open response cache in {}: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Reads all content from a reader
      *
@@ -50,10 +325,11 @@ public class JSONUtils {
      * @throws IOException  in case of errors while reading from the reader
      */
     private String readAll(Reader rd) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-            sb.append((char) cp);
+        StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = rd.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
         }
         return sb.toString();
     }
@@ -0,0 +1,69 @@
+package issues;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out requests to the same host so that at most a given number of requests per second are issued,
+ * regardless of how many threads are fetching concurrently
+ */
+public class RateLimiter {
+
+    private static final Map<String, RateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private long intervalNanos;
+    private long nextSlot;
+
+    private RateLimiter(double requestsPerSecond) {
+        this.intervalNanos = intervalOf(requestsPerSecond);
+        this.nextSlot = System.nanoTime();
+    }
+
+    private static long intervalOf(double requestsPerSecond) {
+        return requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+    }
+
+    /**
+     * Returns the limiter shared by all the requests to the host of the given URL
+     *
+     * @param url               the URL that is going to be requested
+     * @param requestsPerSecond the maximum rate for the host, replacing the one of earlier callers; a
+     *                          non-positive value disables the limit
+     * @return the limiter for the host
+     */
+    public static RateLimiter forUrl(String url, double requestsPerSecond) {
+        String host = URI.create(url.substring(0, url.indexOf('?') < 0 ? url.length() : url.indexOf('?'))).getHost();
+        RateLimiter limiter = LIMITERS.computeIfAbsent(host == null ? "" : host, h -> new RateLimiter(requestsPerSecond));
+        limiter.setRequestsPerSecond(requestsPerSecond);
+        return limiter;
+    }
+
+    /**
+     * Changes the maximum rate; requests already granted a slot keep it
+     *
+     * @param requestsPerSecond the maximum rate, or a non-positive value to disable the limit
+     */
+    public synchronized void setRequestsPerSecond(double requestsPerSecond) {
+        this.intervalNanos = intervalOf(requestsPerSecond);
+    }
+
+    /**
+     * Blocks until the caller is allowed to issue the next request
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long slot;
+        synchronized (this) {
+            if (intervalNanos == 0) return;
+            long now = System.nanoTime();
+            slot = Math.max(now, nextSlot);
+            nextSlot = slot + intervalNanos;
+        }
+
+        long wait = slot - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+}
@@ -0,0 +1,25 @@
+package issues.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A response body stored in a {@link ResponseCache}, along with the validators needed to revalidate it
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+    private final byte[] body;
+    private final String eTag;
+    private final String lastModified;
+    private final Instant storedAt;
+
+    /**
+     * Returns a copy of this response marked as stored at the given instant, used after a successful revalidation
+     */
+    public CachedResponse revalidatedAt(Instant instant) {
+        return new CachedResponse(body, eTag, lastModified, instant);
+    }
+}
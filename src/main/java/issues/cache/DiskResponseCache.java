@@ -0,0 +1,185 @@
+package issues.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A {@link ResponseCache} storing each response as a pair of files in a local directory. The total size of the
+ * stored bodies is capped, evicting the least recently used responses first. Access order survives restarts
+ * through the modification time of the body files
+ */
+@Slf4j
+public class DiskResponseCache implements ResponseCache {
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+
+    private final Path directory;
+    private final Duration timeToLive;
+    private final long maxBytes;
+
+    // Cache key -> body size, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Opens (or creates) a cache in the given directory
+     *
+     * @param directory  the directory holding the cached responses
+     * @param timeToLive how long a response is served without revalidation
+     * @param maxBytes   the maximum total size of the cached bodies
+     * @throws IOException if the directory can't be created or read
+     */
+    public DiskResponseCache(Path directory, Duration timeToLive, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        loadEntries();
+    }
+
+    @Override
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    @Override
+    public synchronized CachedResponse get(String url) {
+        String key = keyOf(url);
+        if (!entries.containsKey(key)) return null;
+
+        Path body = directory.resolve(key + BODY_SUFFIX);
+        Properties meta = new Properties();
+        try (InputStream is = Files.newInputStream(directory.resolve(key + META_SUFFIX))) {
+            meta.load(is);
+            if (!url.equals(meta.getProperty("url"))) return null;
+
+            CachedResponse response = new CachedResponse(Files.readAllBytes(body), meta.getProperty("etag"),
+                    meta.getProperty("lastModified"), Instant.ofEpochMilli(Long.parseLong(meta.getProperty("storedAt"))));
+            Files.setLastModifiedTime(body, FileTime.from(Instant.now()));
+            return response;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding unreadable cache entry for {}: {}", url, e.getMessage());
+            remove(key);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void put(String url, CachedResponse response) {
+        String key = keyOf(url);
+        Properties meta = new Properties();
+        meta.setProperty("url", url);
+        meta.setProperty("storedAt", String.valueOf(response.getStoredAt().toEpochMilli()));
+        if (response.getETag() != null) meta.setProperty("etag", response.getETag());
+        if (response.getLastModified() != null) meta.setProperty("lastModified", response.getLastModified());
+
+        try {
+            Path bodyTmp = Files.createTempFile(directory, key, ".tmp");
+            Path metaTmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(bodyTmp, response.getBody());
+            try (OutputStream os = Files.newOutputStream(metaTmp)) {
+                meta.store(os, null);
+            }
+            Files.move(bodyTmp, directory.resolve(key + BODY_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(metaTmp, directory.resolve(key + META_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to cache response for {}: {}", url, e.getMessage());
+            return;
+        }
+
+        Long previous = entries.put(key, (long) response.getBody().length);
+        totalBytes += response.getBody().length - (previous == null ? 0 : previous);
+        evict();
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits its size cap
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            deleteFiles(eldest.getKey());
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+        deleteFiles(key);
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key + BODY_SUFFIX));
+            Files.deleteIfExists(directory.resolve(key + META_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Unable to delete cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the in-memory LRU order from the files already in the directory
+     */
+    private void loadEntries() throws IOException {
+        List<Path> bodies = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + BODY_SUFFIX)) {
+            for (Path body : stream) bodies.add(body);
+        }
+        bodies.sort(Comparator.comparing(DiskResponseCache::lastModified));
+
+        for (Path body : bodies) {
+            String fileName = body.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - BODY_SUFFIX.length());
+            if (Files.exists(directory.resolve(key + META_SUFFIX))) {
+                long size = Files.size(body);
+                entries.put(key, size);
+                totalBytes += size;
+            } else {
+                Files.deleteIfExists(body);
+            }
+        }
+        evict();
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String keyOf(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
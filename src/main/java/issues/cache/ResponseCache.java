@@ -0,0 +1,30 @@
+package issues.cache;
+
+import java.time.Duration;
+
+/**
+ * A cache of HTTP response bodies keyed by URL
+ */
+public interface ResponseCache {
+
+    /**
+     * Returns the cached response for the URL
+     *
+     * @param url the requested URL
+     * @return the cached response, or null if the URL is not cached
+     */
+    CachedResponse get(String url);
+
+    /**
+     * Stores (or replaces) the response for the URL
+     *
+     * @param url      the requested URL
+     * @param response the response to store
+     */
+    void put(String url, CachedResponse response);
+
+    /**
+     * @return how long a cached response is served without revalidating it
+     */
+    Duration getTimeToLive();
+}
@@ -12,4 +12,20 @@ public class TicketFilter {
     private List<TicketType> types;
     private List<String> fields;
 
+    /**
+     * Checks a ticket against the filter, as the search would; an empty or missing list matches any value
+     *
+     * @param ticket the ticket
+     * @return true if the ticket matches the statuses, the types and the resolutions of the filter
+     */
+    public boolean matches(Ticket ticket) {
+        return matchesAny(statuses, ticket.getStatus())
+                && matchesAny(types, ticket.getType())
+                && matchesAny(resolutions, ticket.getResolution());
+    }
+
+    private static <T> boolean matchesAny(List<T> allowed, T value) {
+        return allowed == null || allowed.isEmpty() || allowed.contains(value);
+    }
+
 }
@@ -0,0 +1,114 @@
+package issues.proportion;
+
+import issues.model.ResolutionType;
+import issues.model.TicketFilter;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import issues.ticket.JiraTicketsManager;
+import lombok.extern.slf4j.Slf4j;
+import properties.ProjectConfig;
+import properties.PropertiesManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the cold start proportion: the median of the proportions of other projects, each computed on its fixed
+ * bugs whose injected version is known from Jira. The projects are retrieved concurrently, each with its own managers
+ */
+@Slf4j
+public class ColdStartProportion {
+
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private ColdStartProportion() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Computes the cold start proportion over the projects listed in "info.proportion.coldStartProjects"
+     *
+     * @return the median proportion, or NaN if none could be computed
+     */
+    public static double compute() {
+        String projects = PropertiesManager.getInstance().getProperty("info.proportion.coldStartProjects");
+        if (projects == null || projects.isBlank()) return Double.NaN;
+        int parallelism = PropertiesManager.getInstance().getIntProperty("info.proportion.coldStartParallelism", DEFAULT_PARALLELISM);
+        List<String> names = Arrays.stream(projects.split(",")).map(String::trim).filter(name -> !name.isEmpty()).toList();
+        return median(computeProjectProportions(names, parallelism).values());
+    }
+
+    /**
+     * Computes the proportion of each project, retrieving up to the given number of projects at a time
+     *
+     * @param projects    the Jira names of the projects
+     * @param parallelism the number of projects retrieved concurrently
+     * @return the proportion of each project that has at least one usable ticket, in the given order
+     */
+    public static Map<String, Double> computeProjectProportions(List<String> projects, int parallelism) {
+        Map<String, Double> proportions = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, projects.size())));
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (String project : projects)
+                results.add(executor.submit(() -> computeProjectProportion(ProjectConfig.forProject(project))));
+
+            for (int i = 0; i < projects.size(); i++) {
+                try {
+                    double proportion = results.get(i).get();
+                    if (Double.isNaN(proportion)) {
+                        log.warn("No ticket of {} has a usable injected version", projects.get(i));
+                        continue;
+                    }
+                    log.info("Proportion of {}: {}", projects.get(i), proportion);
+                    proportions.put(projects.get(i), proportion);
+                } catch (ExecutionException e) {
+                    log.error("Unable to compute the proportion of {} : {}", projects.get(i), e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while computing the cold start proportion");
+        } finally {
+            executor.shutdownNow();
+        }
+        return proportions;
+    }
+
+    /**
+     * Computes the proportion of a single project over its closed or resolved fixed bugs
+     *
+     * @param project the project
+     * @return the mean proportion, or NaN if no ticket is usable
+     */
+    public static double computeProjectProportion(ProjectConfig project) {
+        JiraTicketsManager ticketsManager = new JiraTicketsManager(project);
+        TicketFilter filter = new TicketFilter();
+        filter.setStatuses(List.of(TicketStatus.CLOSED, TicketStatus.RESOLVED));
+        filter.setTypes(List.of(TicketType.BUG));
+        filter.setResolutions(List.of(ResolutionType.FIXED));
+        ticketsManager.retrieveTickets(filter);
+
+        VersionResolution resolution = VersionResolver.resolveAll(ticketsManager.getTickets(),
+                ticketsManager.getReleasesManager().getReleaseIndex());
+        return Proportion.computeProportion(resolution);
+    }
+
+    /**
+     * Returns the median of the values, or NaN if there are none
+     */
+    public static double median(Collection<Double> values) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        if (sorted.length == 0) return Double.NaN;
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -1,16 +1,13 @@
 package issues.proportion;
 
-import issues.model.Release;
 import issues.model.Ticket;
 import issues.release.JiraReleasesManager;
+import issues.release.ReleaseIndex;
 import issues.ticket.JiraTicketsManager;
 import vcs.commit.GitCommitManager;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class FixVersionTest {
 
@@ -27,16 +24,7 @@ public class FixVersionTest {
 
             // STEP 4 - Recupera releases
             JiraReleasesManager releasesManager = ticketsManager.getReleasesManager();
-            List<Release> releases = releasesManager.getReleases();
-
-            // Costruisci mappa release name → release date
-            Map<String, java.time.LocalDate> releaseDates = releases.stream()
-                    .collect(Collectors.toMap(
-                            Release::getName,
-                            Release::getReleaseDate,
-                            (existing, replacement) -> existing,
-                            LinkedHashMap::new
-                    ));
+            ReleaseIndex releaseIndex = releasesManager.getReleaseIndex();
 
             // STEP 5 - Esegui VersionResolver solo per i ticket che NON hanno FV e che hanno commit associati
             List<Ticket> tickets = ticketsManager.getTickets();
@@ -48,7 +36,7 @@ public class FixVersionTest {
                     String estimatedFV = VersionResolver.resolveFixVersion(
                             ticket.getKey(),
                             ticket.getAssociatedCommits(),
-                            releaseDates,
+                            releaseIndex,
                             false // ticketHadFixed = false perché stiamo filtrando quelli senza FV
                     );
 
@@ -1,16 +1,13 @@
 package issues.proportion;
 
-import issues.model.Release;
 import issues.model.Ticket;
 import issues.release.JiraReleasesManager;
+import issues.release.ReleaseIndex;
 import issues.ticket.JiraTicketsManager;
 
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class OpeningVersionTest {
 
@@ -20,13 +17,8 @@ public class OpeningVersionTest {
             JiraReleasesManager releasesManager = new JiraReleasesManager();
             releasesManager.getReleasesInfo();
 
-            // STEP 2 - Costruisci la mappa releaseName → releaseDate
-            List<Release> releases = releasesManager.getReleases();
-            Map<String, LocalDate> releaseDates = releases.stream()
-                    .collect(Collectors.toMap(
-                            Release::getName,
-                            Release::getReleaseDate
-                    ));
+            // STEP 2 - Costruisci l'indice delle release ordinato per data
+            ReleaseIndex releaseIndex = releasesManager.getReleaseIndex();
 
             // STEP 3 - Inizializza JiraTicketsManager
             JiraTicketsManager ticketsManager = new JiraTicketsManager();
@@ -43,7 +35,7 @@ public class OpeningVersionTest {
                 // Usa la issuedDate (data di apertura)
                 LocalDate issuedDate = ticket.getIssueDate();
 
-                String ov = VersionResolver.resolveOpeningVersion(ticket.getKey(), issuedDate, releaseDates);
+                String ov = VersionResolver.resolveOpeningVersion(ticket.getKey(), issuedDate, releaseIndex);
 
                 System.out.printf("Ticket %s (aperto %s) → Opening Version: %s%n",
                         ticket.getKey(),
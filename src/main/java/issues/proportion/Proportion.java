@@ -11,6 +11,55 @@ public class Proportion {
         // Prevent instantiation
     }
 
+    /**
+     * Calcola la proportion di un ticket, P = (FV - IV) / (FV - OV), con FV - OV almeno 1.
+     * Le versioni sono indici di un {@link issues.release.ReleaseIndex}.
+     */
+    public static double computeProportion(int injectedVersion, int openingVersion, int fixVersion) {
+        return (double) (fixVersion - injectedVersion) / Math.max(1, fixVersion - openingVersion);
+    }
+
+    /**
+     * Indica se il ticket può contribuire alla proportion: IV <= OV <= FV, con IV < FV
+     */
+    public static boolean isValidForProportion(int injectedVersion, int openingVersion, int fixVersion) {
+        return injectedVersion != VersionResolution.UNRESOLVED
+                && openingVersion != VersionResolution.UNRESOLVED
+                && fixVersion != VersionResolution.UNRESOLVED
+                && injectedVersion <= openingVersion
+                && openingVersion <= fixVersion
+                && injectedVersion < fixVersion;
+    }
+
+    /**
+     * Stima la IV come FV - (FV - OV) * P, arrotondata e limitata a [0, OV]
+     */
+    public static int estimateInjectedVersion(int openingVersion, int fixVersion, double proportion) {
+        int injectedVersion = (int) Math.round(fixVersion - Math.max(1, fixVersion - openingVersion) * proportion);
+        return Math.max(0, Math.min(openingVersion, injectedVersion));
+    }
+
+    /**
+     * Calcola la proportion media sui ticket con IV nota, ad esempio per il cold start di un altro progetto.
+     * Va chiamato prima della stima, altrimenti conta anche le IV stimate.
+     *
+     * @return la media, o NaN se nessun ticket è valido
+     */
+    public static double computeProportion(VersionResolution resolution) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < resolution.size(); i++) {
+            int iv = resolution.getInjectedVersions()[i];
+            int ov = resolution.getOpeningVersions()[i];
+            int fv = resolution.getFixVersions()[i];
+            if (isValidForProportion(iv, ov, fv)) {
+                sum += computeProportion(iv, ov, fv);
+                count++;
+            }
+        }
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
     /**
      * Restituisce i ticket "completi", cioè quelli che hanno:
      * - almeno un commit associato (per calcolare IV)
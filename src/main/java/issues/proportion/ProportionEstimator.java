@@ -0,0 +1,197 @@
+package issues.proportion;
+
+import issues.model.Ticket;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import properties.PropertiesManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Estimates the injected version of the tickets that lack one with proportion, P = (FV - IV) / (FV - OV), learned
+ * from the tickets whose injected version is known.
+ * <p>
+ * Tickets are visited once in order of resolution date, and P is kept as a running sum over the tickets resolved
+ * before the current one (over all of them, or over the last ones in a moving window), so each estimate costs O(1).
+ * While too few tickets have been resolved, or always with {@link ProportionMethod#COLD_START}, the proportion
+ * computed on other projects is used instead
+ */
+@Slf4j
+@Getter
+@Setter
+public class ProportionEstimator {
+
+    private static final String DEFAULT_METHOD = "incremental";
+    private static final double DEFAULT_WINDOW_PERCENT = 1.0;
+    private static final int DEFAULT_COLD_START_THRESHOLD = 5;
+
+    private ProportionMethod method;
+    // Size of the moving window, as a percentage of the tickets
+    private double windowPercent;
+    // Below this number of prior tickets the cold start proportion is used
+    private int coldStartThreshold;
+    // Proportion computed on other projects, NaN if not available
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private double coldStartProportion = Double.NaN;
+    // Computes the cold start proportion on first use, null once computed
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private DoubleSupplier coldStartSupplier;
+
+    public ProportionEstimator() {
+        PropertiesManager properties = PropertiesManager.getInstance();
+        String configuredMethod = properties.getProperty("info.proportion.method");
+        this.method = ProportionMethod.from(configuredMethod != null ? configuredMethod : DEFAULT_METHOD);
+        this.windowPercent = properties.getDoubleProperty("info.proportion.windowPercent", DEFAULT_WINDOW_PERCENT);
+        this.coldStartThreshold = properties.getIntProperty("info.proportion.coldStartThreshold", DEFAULT_COLD_START_THRESHOLD);
+    }
+
+    public ProportionEstimator(ProportionMethod method) {
+        this();
+        this.method = method;
+    }
+
+    /**
+     * Returns the cold start proportion, computing it if it was given as a supplier
+     *
+     * @return the proportion, or NaN if not available
+     */
+    public double getColdStartProportion() {
+        if (coldStartSupplier != null) {
+            coldStartProportion = coldStartSupplier.getAsDouble();
+            coldStartSupplier = null;
+        }
+        return coldStartProportion;
+    }
+
+    public void setColdStartProportion(double coldStartProportion) {
+        this.coldStartProportion = coldStartProportion;
+        this.coldStartSupplier = null;
+    }
+
+    /**
+     * Sets how to compute the cold start proportion, which is then computed only if an estimate needs it, e.g.
+     * {@code ColdStartProportion::compute}, which retrieves the tickets of other projects
+     *
+     * @param coldStartSupplier computes the proportion, returning NaN if not available
+     */
+    public void setColdStartProportion(DoubleSupplier coldStartSupplier) {
+        this.coldStartSupplier = coldStartSupplier;
+    }
+
+    /**
+     * Estimates the missing injected versions of the resolution and stores them in it. Tickets without an opening or
+     * a fix version are left unresolved
+     *
+     * @param resolution the resolved versions of the tickets
+     * @return the number of injected versions estimated
+     */
+    public int estimate(VersionResolution resolution) {
+        int[] ov = resolution.getOpeningVersions();
+        int[] fv = resolution.getFixVersions();
+        // Only the injected versions from Jira are learned from, not the estimated ones
+        int[] iv = resolution.getInjectedVersions().clone();
+
+        List<Integer> order = new ArrayList<>(resolution.size());
+        for (int i = 0; i < resolution.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(i -> resolution.getTicket(i).getClosedDate()));
+
+        int windowSize = Math.max(1, (int) Math.round(resolution.size() * windowPercent / 100));
+        RunningProportion running = new RunningProportion(method == ProportionMethod.MOVING_WINDOW ? windowSize : 0);
+
+        int estimated = 0;
+        int from = 0;
+        while (from < order.size()) {
+            // Tickets resolved on the same day only learn from the days before
+            LocalDate day = resolution.getTicket(order.get(from)).getClosedDate();
+            int to = from;
+            while (to < order.size() && resolution.getTicket(order.get(to)).getClosedDate().equals(day)) to++;
+
+            for (int k = from; k < to; k++) {
+                int i = order.get(k);
+                if (iv[i] != VersionResolution.UNRESOLVED || ov[i] == VersionResolution.UNRESOLVED
+                        || fv[i] == VersionResolution.UNRESOLVED) continue;
+
+                double p = currentProportion(running);
+                if (Double.isNaN(p)) continue;
+                resolution.setEstimatedInjectedVersion(i, Proportion.estimateInjectedVersion(ov[i], fv[i], p));
+                estimated++;
+            }
+            for (int k = from; k < to; k++) {
+                int i = order.get(k);
+                if (Proportion.isValidForProportion(iv[i], ov[i], fv[i]))
+                    running.add(Proportion.computeProportion(iv[i], ov[i], fv[i]));
+            }
+            from = to;
+        }
+
+        log.debug("Estimated {} injected versions with {} proportion", estimated, method.getMethod());
+        return estimated;
+    }
+
+    /**
+     * Returns the proportion to use for the next ticket, or NaN if there's none
+     */
+    private double currentProportion(RunningProportion running) {
+        if (method == ProportionMethod.COLD_START) return getColdStartProportion();
+        if (running.count() < coldStartThreshold) {
+            double coldStart = getColdStartProportion();
+            if (!Double.isNaN(coldStart)) return coldStart;
+        }
+        return running.mean();
+    }
+
+    /**
+     * Copies the estimated injected versions to the tickets that have none
+     *
+     * @param resolution the resolved versions of the tickets
+     */
+    public static void applyTo(VersionResolution resolution) {
+        for (int i = 0; i < resolution.size(); i++) {
+            Ticket ticket = resolution.getTicket(i);
+            if (ticket.getInjected() == null) ticket.setInjected(resolution.getInjectedVersion(i));
+        }
+    }
+
+    /**
+     * Mean of the proportions seen so far, over all of them or over the last ones in a ring buffer
+     */
+    private static class RunningProportion {
+
+        private final double[] window;
+        private int next;
+        private int count;
+        private double sum;
+
+        RunningProportion(int windowSize) {
+            this.window = windowSize > 0 ? new double[windowSize] : null;
+        }
+
+        void add(double proportion) {
+            sum += proportion;
+            if (window == null) {
+                count++;
+                return;
+            }
+            if (count == window.length) sum -= window[next];
+            else count++;
+            window[next] = proportion;
+            next = (next + 1) % window.length;
+        }
+
+        int count() {
+            return count;
+        }
+
+        double mean() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+    }
+}
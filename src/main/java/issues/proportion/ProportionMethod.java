@@ -0,0 +1,36 @@
+package issues.proportion;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The ways of computing the proportion used to estimate injected versions
+ */
+@RequiredArgsConstructor
+public enum ProportionMethod {
+
+    // Mean over all the tickets resolved before
+    INCREMENTAL("incremental"),
+    // Mean over the last tickets resolved before
+    MOVING_WINDOW("moving window"),
+    // Proportion computed on other projects
+    COLD_START("cold start");
+
+    @Getter
+    private final String method;
+
+    /**
+     * Returns the ProportionMethod enum value corresponding to the given string.
+     *
+     * @param method the string representation of the method, either the name or the description
+     * @return the corresponding ProportionMethod enum value, or INCREMENTAL if no match is found
+     */
+    public static ProportionMethod from(String method) {
+        for (ProportionMethod m : values()) {
+            if (m.name().equalsIgnoreCase(method) || m.getMethod().equalsIgnoreCase(method)) {
+                return m;
+            }
+        }
+        return INCREMENTAL;
+    }
+}
@@ -0,0 +1,114 @@
+package issues.proportion;
+
+import issues.model.Release;
+import issues.model.Ticket;
+import issues.release.ReleaseIndex;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The versions resolved for a list of tickets, stored as indices into a {@link ReleaseIndex}: the i-th entry of each
+ * array refers to the i-th ticket, and -1 marks a version that couldn't be resolved
+ */
+@Getter
+public class VersionResolution {
+
+    public static final int UNRESOLVED = -1;
+
+    private final ReleaseIndex releaseIndex;
+    private final List<Ticket> tickets;
+    private final int[] openingVersions;
+    private final int[] fixVersions;
+    private final int[] injectedVersions;
+
+    // Aggregate counters, filled while resolving
+    private int openingResolved;
+    private int fixFromJira;
+    private int fixEstimated;
+    private int injectedFromJira;
+    private int injectedEstimated;
+
+    VersionResolution(ReleaseIndex releaseIndex, List<Ticket> tickets) {
+        this.releaseIndex = releaseIndex;
+        this.tickets = List.copyOf(tickets);
+        this.openingVersions = new int[tickets.size()];
+        this.fixVersions = new int[tickets.size()];
+        this.injectedVersions = new int[tickets.size()];
+    }
+
+    /**
+     * @return the number of tickets
+     */
+    public int size() {
+        return tickets.size();
+    }
+
+    /**
+     * @return the ticket at the given index
+     */
+    public Ticket getTicket(int index) {
+        return tickets.get(index);
+    }
+
+    /**
+     * @return the opening version of the ticket at the given index, or null if unresolved
+     */
+    public Release getOpeningVersion(int index) {
+        return releaseAt(openingVersions[index]);
+    }
+
+    /**
+     * @return the fix version of the ticket at the given index, or null if unresolved
+     */
+    public Release getFixVersion(int index) {
+        return releaseAt(fixVersions[index]);
+    }
+
+    /**
+     * @return the injected version of the ticket at the given index, or null if unresolved
+     */
+    public Release getInjectedVersion(int index) {
+        return releaseAt(injectedVersions[index]);
+    }
+
+    /**
+     * @return the number of tickets with a fix version, whether from Jira or estimated
+     */
+    public int getFixResolved() {
+        return fixFromJira + fixEstimated;
+    }
+
+    void setOpeningVersion(int index, int release) {
+        openingVersions[index] = release;
+        if (release != UNRESOLVED) openingResolved++;
+    }
+
+    void setFixVersion(int index, int release, boolean estimated) {
+        fixVersions[index] = release;
+        if (release == UNRESOLVED) return;
+        if (estimated) fixEstimated++;
+        else fixFromJira++;
+    }
+
+    void setInjectedVersion(int index, int release) {
+        injectedVersions[index] = release;
+        if (release != UNRESOLVED) injectedFromJira++;
+    }
+
+    void setEstimatedInjectedVersion(int index, int release) {
+        injectedVersions[index] = release;
+        injectedEstimated++;
+    }
+
+    private Release releaseAt(int index) {
+        return index == UNRESOLVED ? null : releaseIndex.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d tickets over %d releases: OV %d, FV %d (%d from Jira, %d estimated), IV %d (%d estimated)",
+                size(), releaseIndex.size(), openingResolved, getFixResolved(), fixFromJira, fixEstimated,
+                injectedFromJira + injectedEstimated, injectedEstimated);
+    }
+}
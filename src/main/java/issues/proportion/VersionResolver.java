@@ -1,17 +1,88 @@
 package issues.proportion;
 
+import issues.model.Release;
+import issues.model.Ticket;
+import issues.release.ReleaseIndex;
+import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import vcs.model.CommitInfo;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 public class VersionResolver {
 
+    private static final Timer RESOLVE_TIMER = MetricsRegistry.getInstance().timer("proportion_resolve_seconds", "Time to resolve the opening, fix and injected versions of the tickets");
+    private static final Counter RESOLVED_TICKETS = MetricsRegistry.getInstance().counter("proportion_resolved_tickets_total", "Tickets whose versions were resolved");
+
     private VersionResolver() {
         // Prevent instantiation
     }
 
+    /**
+     * Risolve in un solo passaggio OV, FV e IV di tutti i ticket.
+     * La FV di Jira ha la precedenza; se manca viene stimata dall'ultimo commit associato.
+     * Non stampa nulla per ticket: i contatori aggregati sono nel risultato.
+     *
+     * @param tickets  i ticket
+     * @param releases le release del progetto, in qualsiasi ordine
+     * @return la tabella delle versioni risolte
+     */
+    public static VersionResolution resolveAll(List<Ticket> tickets, List<Release> releases) {
+        return resolveAll(tickets, new ReleaseIndex(releases));
+    }
+
+    /**
+     * Risolve in un solo passaggio OV, FV e IV di tutti i ticket, sull'indice delle release
+     *
+     * @param tickets      i ticket
+     * @param releaseIndex l'indice delle release
+     * @return la tabella delle versioni risolte
+     */
+    public static VersionResolution resolveAll(List<Ticket> tickets, ReleaseIndex releaseIndex) {
+        long start = RESOLVE_TIMER.start();
+        VersionResolution resolution = new VersionResolution(releaseIndex, tickets);
+
+        for (int i = 0; i < resolution.size(); i++) {
+            Ticket ticket = resolution.getTicket(i);
+
+            resolution.setOpeningVersion(i, releaseIndex.openingVersionIndex(ticket.getIssueDate()));
+
+            int fixVersion = releaseIndex.indexOf(ticket.getFixed());
+            if (fixVersion != VersionResolution.UNRESOLVED) {
+                resolution.setFixVersion(i, fixVersion, false);
+            } else {
+                LocalDate latestCommitDate = latestCommitDate(ticket.getAssociatedCommits());
+                resolution.setFixVersion(i, latestCommitDate == null
+                        ? VersionResolution.UNRESOLVED
+                        : releaseIndex.fixVersionIndex(latestCommitDate), true);
+            }
+
+            resolution.setInjectedVersion(i, releaseIndex.indexOf(ticket.getInjected()));
+        }
+
+        RESOLVE_TIMER.stop(start);
+        RESOLVED_TICKETS.add(resolution.size());
+        log.debug("Resolved versions for {}", resolution);
+        return resolution;
+    }
+
+    /**
+     * Restituisce la data del commit più recente, o null se non ci sono commit
+     */
+    private static LocalDate latestCommitDate(List<? extends CommitInfo> commits) {
+        if (commits == null) return null;
+        LocalDate latest = null;
+        for (CommitInfo commit : commits) {
+            if (latest == null || commit.getCommitDate().isAfter(latest)) latest = commit.getCommitDate();
+        }
+        return latest;
+    }
+
     /**
      * Risolve la Fix Version come nome release.
      * Stampa SOLO i ticket che non avevano già FV e a cui è stata stimata.
@@ -47,6 +118,36 @@ public class VersionResolver {
         return null;
     }
 
+    /**
+     * Risolve la Fix Version come nome release, cercando sull'indice delle release.
+     * Stampa SOLO i ticket che non avevano già FV e a cui è stata stimata.
+     *
+     **/
+    public static String resolveFixVersion(String ticketKey,
+                                           List<? extends CommitInfo> commits,
+                                           ReleaseIndex releaseIndex,
+                                           Boolean ticketHadFixed) {
+
+        if (commits == null || commits.isEmpty()) return null;
+
+        // Trova la data più recente del commit
+        LocalDate latestCommitDate = commits.stream()
+                .map(CommitInfo::getCommitDate)
+                .max(LocalDate::compareTo)
+                .orElse(null);
+
+        // Trova la release più vecchia con releaseDate >= latestCommitDate
+        int index = releaseIndex.fixVersionIndex(latestCommitDate);
+        if (index < 0) return null;
+
+        String fixVersion = releaseIndex.get(index).getName();
+        // Log SOLO se il ticket non aveva già FV
+        if (ticketHadFixed != null && !ticketHadFixed) {
+            System.out.printf("[FV STIMATA] Ticket %s → FV: %s%n", ticketKey, fixVersion);
+        }
+        return fixVersion;
+    }
+
     public static String resolveOpeningVersion(String ticketKey,
                                                LocalDate ticketIssuedDate,
                                                Map<String, LocalDate> releaseDates) {
@@ -75,4 +176,24 @@ public class VersionResolver {
         return openingVersion;
     }
 
+    /**
+     * Risolve la Opening Version come nome release, cercando sull'indice delle release
+     */
+    public static String resolveOpeningVersion(String ticketKey,
+                                               LocalDate ticketIssuedDate,
+                                               ReleaseIndex releaseIndex) {
+
+        // Trova la release più recente con releaseDate <= ticketIssuedDate
+        int index = releaseIndex.openingVersionIndex(ticketIssuedDate);
+
+        if (index >= 0) {
+            String openingVersion = releaseIndex.get(index).getName();
+            System.out.printf("[OV CALCOLATA] Ticket %s → OV: %s%n", ticketKey, openingVersion);
+            return openingVersion;
+        }
+
+        System.out.printf("[OV NON TROVATA] Ticket %s → Nessuna release <= %s%n", ticketKey, ticketIssuedDate);
+        return null;
+    }
+
 }
@@ -1,15 +1,20 @@
 package issues.release;
 
 
+import dataset.Column;
+import dataset.DatasetWriter;
 import issues.JSONUtils;
 import issues.model.Release;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import org.json.JSONArray;
-import properties.PropertiesManager;
+import properties.ProjectConfig;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -21,6 +26,8 @@ import java.util.Locale;
 public class JiraReleasesManager{
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Timer RETRIEVE_TIMER = MetricsRegistry.getInstance().timer("jira_releases_retrieve_seconds", "Time to retrieve the releases of a project");
+    private static final Counter RELEASES = MetricsRegistry.getInstance().counter("jira_releases_total", "Releases with a date retrieved");
 
     private final String projectName;
 
@@ -31,14 +38,36 @@ public class JiraReleasesManager{
 
     private final JSONUtils jsonUtils;
 
+    private ReleaseIndex releaseIndex;
+
     public JiraReleasesManager() {
-        this.projectName = PropertiesManager.getInstance().getProperty("info.name").toUpperCase(Locale.ROOT);
-        String baseUrl = PropertiesManager.getInstance().getProperty("info.jira.baseUrl");
+        this(ProjectConfig.fromProperties());
+    }
+
+    /**
+     * Creates a releases manager for the given project
+     *
+     * @param project the project
+     */
+    public JiraReleasesManager(ProjectConfig project) {
+        this(project, new JSONUtils());
+    }
+
+    /**
+     * Creates a releases manager for the given project fetching through the given utils, e.g. without the
+     * response cache
+     *
+     * @param project   the project
+     * @param jsonUtils the utils used for the releases
+     */
+    public JiraReleasesManager(ProjectConfig project, JSONUtils jsonUtils) {
+        this.projectName = project.getName().toUpperCase(Locale.ROOT);
+        String baseUrl = project.getJiraBaseUrl();
 
         this.url = String.format(baseUrl + "project/%s/versions", projectName);
 
         this.releases = new ArrayList<>();
-        this.jsonUtils = new JSONUtils();
+        this.jsonUtils = jsonUtils;
     }
 
     /**
@@ -52,66 +81,75 @@ public class JiraReleasesManager{
      * Retrieves the first percentage-% of the releases for the project. Ignores releases with missing dates
      */
     public void getReleasesInfo(double percentage) {
-        JSONArray releases;
+        long start = RETRIEVE_TIMER.start();
         try {
-            releases = jsonUtils.readJsonArrayFromUrl(url);
-        } catch (IOException e) {
-            log.error("Unable to retrieve Releases from {} : {}", url, e.getMessage());
-            return;
-        }
+            JSONArray releases;
+            try {
+                releases = jsonUtils.readJsonArrayFromUrl(url);
+            } catch (IOException e) {
+                log.error("Unable to retrieve Releases from {} : {}", url, e.getMessage());
+                return;
+            }
 
-        this.releases.clear();
-        // Takes the "Releases" field from the JSON
-        int releasesNumber = releases.length();
-        int releasesToBeConsidered = (int) Math.ceil(releasesNumber * percentage);
-        String name;
-        String id;
-        boolean released = false;
-        for (int i = 0; i < releasesToBeConsidered; i++) {
-            name = id = "";
-            if (releases.getJSONObject(i).has("releaseDate")) {
-                if (releases.getJSONObject(i).has("name")) name = releases.getJSONObject(i).get("name").toString();
-                if (releases.getJSONObject(i).has("id")) id = releases.getJSONObject(i).get("id").toString();
-                if (releases.getJSONObject(i).has("released"))
-                    released = releases.getJSONObject(i).getBoolean("released");
-                this.releases.add(new Release(id, name, LocalDate.parse(releases.getJSONObject(i).getString("releaseDate")), released));
-            } else {
-                log.error("Release {} has no release date", id);
+            this.releases.clear();
+            this.releaseIndex = null;
+            // Takes the "Releases" field from the JSON
+            int releasesNumber = releases.length();
+            int releasesToBeConsidered = (int) Math.ceil(releasesNumber * percentage);
+            String name;
+            String id;
+            boolean released = false;
+            for (int i = 0; i < releasesToBeConsidered; i++) {
+                name = id = "";
+                if (releases.getJSONObject(i).has("releaseDate")) {
+                    if (releases.getJSONObject(i).has("name")) name = releases.getJSONObject(i).get("name").toString();
+                    if (releases.getJSONObject(i).has("id")) id = releases.getJSONObject(i).get("id").toString();
+                    if (releases.getJSONObject(i).has("released"))
+                        released = releases.getJSONObject(i).getBoolean("released");
+                    this.releases.add(new Release(id, name, LocalDate.parse(releases.getJSONObject(i).getString("releaseDate")), released));
+                } else {
+                    log.error("Release {} has no release date", id);
+                }
             }
-        }
 
-        // Order releases by date
-        this.releases.sort(Comparator.comparing(Release::getReleaseDate));
+            // Order releases by date
+            this.releases.sort(Comparator.comparing(Release::getReleaseDate));
+            RELEASES.add(this.releases.size());
+        } finally {
+            RETRIEVE_TIMER.stop(start);
+        }
 
         for (Release availableRelease : this.releases) {
             log.info("Available release: {}", availableRelease.getName());
         }
     }
 
+    /**
+     * Returns an index of the retrieved releases, built on first use after each retrieval
+     *
+     * @return the release index
+     */
+    public ReleaseIndex getReleaseIndex() {
+        if (releaseIndex == null) releaseIndex = new ReleaseIndex(releases);
+        return releaseIndex;
+    }
+
     /**
      * Writes release info to a CSV file named "ProjectNameReleaseInfo.csv"
      */
     public void outputReleaseInfo() {
         // Name of CSV for output
-        String outFileName = projectName + "ReleaseInfo.csv";
-        try (FileWriter fileWriter = new FileWriter(outFileName)) {
-            // Set CSV header
-            fileWriter.append("Index,Release ID,Release Name,Date");
+        Path outFile = Path.of(projectName + "ReleaseInfo.csv");
+        List<Column> columns = List.of(Column.numeric("Index"), Column.string("Release ID"),
+                Column.string("Release Name"), Column.string("Date"));
+        try (DatasetWriter writer = DatasetWriter.open(outFile, projectName, columns)) {
             // Writes the CSV content using the first percentage-% of the releases
-            Release release;
             for (int i = 0; i < releases.size(); i++) {
-                fileWriter.append("\n");
-                release = releases.get(i);
-                fileWriter.append(String.valueOf(i + 1));
-                fileWriter.append(",");
-                fileWriter.append(release.getId());
-                fileWriter.append(",");
-                fileWriter.append(release.getName());
-                fileWriter.append(",");
-                fileWriter.append(release.getReleaseDate().format(DATE_FORMATTER));
+                Release release = releases.get(i);
+                writer.writeRow(i + 1, release.getId(), release.getName(), release.getReleaseDate().format(DATE_FORMATTER));
             }
-        } catch (Exception e) {
-            System.err.println("Error while writing on CSV: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Error while writing {} : {}", outFile, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
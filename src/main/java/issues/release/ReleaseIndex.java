@@ -0,0 +1,149 @@
+package issues.release;
+
+import issues.model.Release;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable index of releases sorted by date, with release dates stored as epoch days so that opening,
+ * fix and affected versions are resolved by binary search. Releases sharing a date keep their relative order
+ */
+public class ReleaseIndex {
+
+    private final List<Release> releases;
+    private final int[] epochDays;
+
+    /**
+     * Builds the index; the releases don't need to be sorted
+     *
+     * @param releases the releases to index
+     */
+    public ReleaseIndex(List<Release> releases) {
+        this.releases = new ArrayList<>(releases);
+        this.releases.sort(Comparator.comparing(Release::getReleaseDate));
+        this.epochDays = new int[this.releases.size()];
+        for (int i = 0; i < epochDays.length; i++)
+            epochDays[i] = (int) this.releases.get(i).getReleaseDate().toEpochDay();
+    }
+
+    /**
+     * @return the number of indexed releases
+     */
+    public int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * @return the release at the given index, in date order
+     */
+    public Release get(int index) {
+        return releases.get(index);
+    }
+
+    /**
+     * @return the releases in date order
+     */
+    public List<Release> getReleases() {
+        return List.copyOf(releases);
+    }
+
+    /**
+     * @return the release dates as epoch days, in date order
+     */
+    public int[] getEpochDays() {
+        return epochDays.clone();
+    }
+
+    /**
+     * Returns the index of the given release, comparing by id
+     *
+     * @param release the release
+     * @return the index, or -1 if the release isn't indexed
+     */
+    public int indexOf(Release release) {
+        if (release == null) return -1;
+        // Binary search on the date, then scan the releases sharing it
+        int day = (int) release.getReleaseDate().toEpochDay();
+        for (int i = lowerBound(day); i < epochDays.length && epochDays[i] == day; i++)
+            if (releases.get(i).getId().equals(release.getId())) return i;
+        return -1;
+    }
+
+    /**
+     * Resolves the opening version: the latest release published on or before the date
+     *
+     * @param issueDate the date the ticket was opened
+     * @return the index of the release, or -1 if every release is later
+     */
+    public int openingVersionIndex(LocalDate issueDate) {
+        int index = upperBound((int) issueDate.toEpochDay()) - 1;
+        if (index < 0) return -1;
+        // First of the releases sharing that date
+        return lowerBound(epochDays[index]);
+    }
+
+    /**
+     * Resolves the fix version: the earliest release published on or after the date
+     *
+     * @param fixDate the date of the last fix commit
+     * @return the index of the release, or -1 if every release is earlier
+     */
+    public int fixVersionIndex(LocalDate fixDate) {
+        int index = lowerBound((int) fixDate.toEpochDay());
+        return index < epochDays.length ? index : -1;
+    }
+
+    /**
+     * Returns the first release published after the date, i.e. the first release that can know about what
+     * happened on that date
+     *
+     * @param date the date, e.g. when a ticket was resolved
+     * @return the index of the release, or {@link #size()} if every release is earlier
+     */
+    public int firstReleaseAfter(LocalDate date) {
+        return upperBound((int) date.toEpochDay());
+    }
+
+    /**
+     * Returns the affected versions, i.e. the releases in [injected, fixed)
+     *
+     * @param injectedIndex the index of the injected version
+     * @param fixedIndex    the index of the fix version
+     * @return the affected releases, empty if the range is empty or invalid
+     */
+    public List<Release> affectedVersions(int injectedIndex, int fixedIndex) {
+        if (injectedIndex < 0 || fixedIndex > epochDays.length || injectedIndex >= fixedIndex) return List.of();
+        return List.copyOf(releases.subList(injectedIndex, fixedIndex));
+    }
+
+    /**
+     * Returns the index of the first release whose epoch day is greater than or equal to the given one
+     */
+    private int lowerBound(int day) {
+        int lo = 0;
+        int hi = epochDays.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDays[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the index of the first release whose epoch day is greater than the given one
+     */
+    private int upperBound(int day) {
+        int lo = 0;
+        int hi = epochDays.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (epochDays[mid] <= day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -3,25 +3,53 @@ package issues.ticket;
 import issues.JSONUtils;
 import issues.model.*;
 import issues.release.JiraReleasesManager;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import properties.PropertiesManager;
+import properties.ProjectConfig;
 
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Slf4j
 public class JiraTicketsManager{
 
-    private static final DateTimeFormatter formatter = new DateTimeFormatterBuilder().appendPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").appendOffset("+HHMM", "Z").toFormatter();
-    private static final int PAGE_SIZE = 100;
+    static final DateTimeFormatter formatter = new DateTimeFormatterBuilder().appendPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").appendOffset("+HHMM", "Z").toFormatter();
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final int DEFAULT_FETCH_PARALLELISM = 1;
+    private static final double DEFAULT_MAX_REQUESTS_PER_SECOND = 0;
+    private static final String DEFAULT_STORE_DIR = ".cache/tickets";
+
+    private static final Timer RETRIEVE_TIMER = MetricsRegistry.getInstance().timer("jira_tickets_retrieve_seconds", "Time to retrieve the tickets of a project");
+    private static final Timer PAGE_TIMER = MetricsRegistry.getInstance().timer("jira_page_fetch_seconds", "Time to fetch and decode a page of search results");
+    private static final Timer DECODE_TIMER = MetricsRegistry.getInstance().timer("jira_ticket_decode_seconds", "Time to turn the JSON of an issue into a ticket");
+    private static final Histogram PAGE_ISSUES = MetricsRegistry.getInstance().histogram("jira_page_issues", "Issues per page of search results", 0, 10, 50, 100, 250, 500, 1000);
+    private static final Counter PAGES = MetricsRegistry.getInstance().counter("jira_pages_total", "Pages of search results fetched");
+    private static final Counter TICKETS_DECODED = MetricsRegistry.getInstance().counter("jira_tickets_decoded_total", "Issues decoded into tickets");
 
     private final String projectName;
     private final String baseUrl;
@@ -33,23 +61,94 @@ public class JiraTicketsManager{
     @Getter
     private final JiraReleasesManager ReleasesManager;
 
+    @Getter
+    @Setter
+    private int pageSize;
+    @Getter
+    @Setter
+    private int fetchParallelism;
+    // Directory of the ticket stores of the incremental syncs
+    @Getter
+    @Setter
+    private Path storeDirectory;
+
     public JiraTicketsManager() {
-        this.projectName = PropertiesManager.getInstance().getProperty("info.name");
-        this.baseUrl = PropertiesManager.getInstance().getProperty("info.jira.baseUrl");
-        this.jsonUtils = new JSONUtils();
+        this(ProjectConfig.fromProperties());
+    }
 
-        this.ReleasesManager = new JiraReleasesManager();
+    /**
+     * Creates a tickets manager for the given project, retrieving its releases. The fetch settings are shared
+     * by all the projects
+     *
+     * @param project the project
+     */
+    public JiraTicketsManager(ProjectConfig project) {
+        this(project, new JSONUtils());
+    }
+
+    /**
+     * Creates a tickets manager for the given project fetching through the given utils, e.g. without the
+     * response cache
+     *
+     * @param project   the project
+     * @param jsonUtils the utils used for the tickets and the releases
+     */
+    public JiraTicketsManager(ProjectConfig project, JSONUtils jsonUtils) {
+        this.projectName = project.getName();
+        this.baseUrl = project.getJiraBaseUrl();
+        this.jsonUtils = jsonUtils;
+        this.pageSize = PropertiesManager.getInstance().getIntProperty("info.jira.fetch.pageSize", DEFAULT_PAGE_SIZE);
+        this.fetchParallelism = PropertiesManager.getInstance().getIntProperty("info.jira.fetch.parallelism", DEFAULT_FETCH_PARALLELISM);
+        jsonUtils.setMaxRequestsPerSecond(PropertiesManager.getInstance().getDoubleProperty("info.jira.fetch.maxRequestsPerSecond", DEFAULT_MAX_REQUESTS_PER_SECOND));
+        String storeDir = PropertiesManager.getInstance().getProperty("info.jira.store.dir");
+        this.storeDirectory = Path.of(storeDir == null || storeDir.isBlank() ? DEFAULT_STORE_DIR : storeDir.trim());
+
+        this.ReleasesManager = new JiraReleasesManager(project, jsonUtils);
         ReleasesManager.getReleasesInfo();
 
         this.tickets = new ArrayList<>();
         this.ticketsWithNoFixRelease = new ArrayList<>();
     }
 
+    public double getMaxRequestsPerSecond() {
+        return jsonUtils.getMaxRequestsPerSecond();
+    }
+
+    /**
+     * Sets the maximum requests per second to the Jira host, shared with the releases manager; a non-positive
+     * value disables the limit
+     */
+    public void setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+        jsonUtils.setMaxRequestsPerSecond(maxRequestsPerSecond);
+    }
+
     public void clear() {
         this.tickets.clear();
         this.ticketsWithNoFixRelease.clear();
     }
 
+    /**
+     * Normalizes a ticket key so that lookups are case-insensitive
+     *
+     * @param key the ticket key, e.g. "bookkeeper-123"
+     * @return the normalized key, e.g. "BOOKKEEPER-123"
+     */
+    public static String normalizeKey(String key) {
+        return key.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds an index of the retrieved tickets keyed by their normalized key
+     *
+     * @return a map from normalized ticket key to ticket
+     */
+    public Map<String, Ticket> getTicketIndex() {
+        Map<String, Ticket> index = new HashMap<>(tickets.size() * 2);
+        for (Ticket ticket : tickets)
+            index.putIfAbsent(normalizeKey(ticket.getKey()), ticket);
+        return index;
+    }
+
     public void retrieveTickets() {
         this.retrieveTickets(new TicketFilter());
     }
@@ -60,39 +159,96 @@ public class JiraTicketsManager{
      * @param ticketFilter the ticket's filter
      */
     public void retrieveTickets(TicketFilter ticketFilter) {
-        int i = 0, j, total = 1;
-        String baseUrl = buildUrlFromFilter(ticketFilter);
-        String url;
-        // Get JSON API for closed bugs w/ AV in the project
-        do {
-            //Only gets a max of 100 at a time, so must do this multiple times if bugs > 100
-            url = String.format(baseUrl, i, PAGE_SIZE);
-            JSONObject json;
-            try {
-                json = jsonUtils.readJsonFromUrl(url);
-            } catch (IOException e) {
-                log.error("Unable to retrieve tickets IDs: {}", e.getMessage());
-                return;
-            }
+        long start = RETRIEVE_TIMER.start();
+        fetchTickets(buildUrlFromFilter(ticketFilter, null), true);
+        logRetrievedTickets();
+        RETRIEVE_TIMER.stop(start);
+    }
 
-            // Retrieves the "issues" array
-            JSONArray issues = json.getJSONArray("issues");
+    /**
+     * Retrieves the tickets corresponding to the filter, fetching only the ones updated since the last sync
+     * and merging them into the local ticket store. The first sync for a filter fetches all the tickets; later
+     * syncs search all the tickets of the project updated since then and apply the filter locally, so that
+     * the tickets that were updated to no longer match it (e.g. reopened) are removed. The search always
+     * bypasses the response cache, which would hide the updates of the day. If the fetch fails, the tickets
+     * of the store are used as they are and the sync point is left unchanged
+     *
+     * @param ticketFilter the ticket's filter
+     */
+    public void retrieveTicketsIncrementally(TicketFilter ticketFilter) {
+        long start = RETRIEVE_TIMER.start();
+        try {
+            syncTickets(ticketFilter);
+        } finally {
+            RETRIEVE_TIMER.stop(start);
+        }
+    }
 
-            // Set the total number of issues found
-            if (json.getInt("total") != total) {
-                total = json.getInt("total");
-                log.info("Total number of issues: {}", total);
-            }
+    private void syncTickets(TicketFilter ticketFilter) {
+        String fullUrl = buildUrlFromFilter(ticketFilter, null);
+        Path storeFile = storeDirectory.resolve(projectName + "-" + Integer.toHexString(fullUrl.hashCode()) + ".json");
+        TicketStore store = TicketStore.load(storeFile, this::getReleaseById);
+
+        // The mark is a local date while Jira compares in the server's time zone: go back one day to cover the offset
+        LocalDate syncStart = LocalDate.now();
+        LocalDate since = store.getHighWaterMark() == null ? null : store.getHighWaterMark().minusDays(1);
+        log.info("Syncing tickets {}", since == null ? "from scratch" : "updated since " + since);
+
+        // The filter is applied locally to the updated tickets, the search must also return the ones that left it
+        String syncUrl = since == null ? fullUrl : buildUrlFromFilter(new TicketFilter(), since);
+        clear();
+        if (!fetchTickets(syncUrl, false)) {
+            log.warn("Sync failed, using the {} tickets of the last sync", store.getTickets().size());
+            clear();
+            addTickets(store.getTickets());
+            logRetrievedTickets();
+            return;
+        }
+        log.info("Number of tickets updated since last sync: {}", tickets.size());
 
-            // For each retrieved issue, adds a ticket to the list
-            for (j = 0; j < issues.length(); j++) {
-                // Iterate through each ticket
-                JSONObject ticketJson = issues.getJSONObject(j);
-                tickets.add(getTicketFromJson(ticketJson));
-            }
-            i += j;
-        } while (i < total);
+        store.merge(tickets, ticketFilter);
+        try {
+            store.save(syncStart);
+        } catch (IOException e) {
+            log.error("Unable to save ticket store {}: {}", storeFile, e.getMessage());
+        }
+
+        clear();
+        addTickets(store.getTickets());
+        logRetrievedTickets();
+    }
 
+    /**
+     * Fetches all the pages for the given search URL into the ticket lists. When the fetch parallelism is
+     * greater than one, the first page is fetched to learn the total, then the remaining pages are fetched
+     * concurrently and merged in page order
+     *
+     * @param baseUrl  the search URL, with placeholders for the page offset and size
+     * @param useCache false to bypass the response cache
+     * @return true if all the pages were fetched
+     */
+    private boolean fetchTickets(String baseUrl, boolean useCache) {
+        // Get JSON API for closed bugs w/ AV in the project
+        TicketPage firstPage;
+        try {
+            firstPage = fetchPage(baseUrl, 0, useCache);
+        } catch (IOException | JSONException e) {
+            log.error("Unable to retrieve tickets IDs: {}", e.getMessage());
+            return false;
+        }
+
+        int total = firstPage.getTotal();
+        log.info("Total number of issues: {}", total);
+        addTickets(firstPage.getTickets());
+
+        // The server may cap the page size below the requested one
+        int returned = firstPage.getTickets().size();
+        if (fetchParallelism > 1)
+            return retrievePagesConcurrently(baseUrl, returned == 0 ? pageSize : returned, total, useCache);
+        return retrievePagesSequentially(baseUrl, returned, total, useCache);
+    }
+
+    private void logRetrievedTickets() {
         log.info("Number of valid tickets found: {}", tickets.size());
         if (!ticketsWithNoFixRelease.isEmpty()) {
             // Output tickets with no fix Release
@@ -102,6 +258,82 @@ public class JiraTicketsManager{
         }
     }
 
+    /**
+     * Fetches the pages following the first one, one at a time
+     */
+    private boolean retrievePagesSequentially(String baseUrl, int startAt, int total, boolean useCache) {
+        int i = startAt;
+        while (i < total) {
+            //Only gets a max of pageSize at a time, so must do this multiple times if bugs > pageSize
+            List<Ticket> page;
+            try {
+                page = fetchPage(baseUrl, i, useCache).getTickets();
+            } catch (IOException | JSONException e) {
+                log.error("Unable to retrieve tickets IDs: {}", e.getMessage());
+                return false;
+            }
+            if (page.isEmpty()) break;
+
+            addTickets(page);
+            i += page.size();
+        }
+        return true;
+    }
+
+    /**
+     * Fetches and parses the pages following the first one on a bounded pool, then merges them in page order
+     */
+    private boolean retrievePagesConcurrently(String baseUrl, int pageSize, int total, boolean useCache) {
+        ExecutorService executor = Executors.newFixedThreadPool(fetchParallelism);
+        try {
+            List<Future<List<Ticket>>> pages = new ArrayList<>();
+            for (int startAt = pageSize; startAt < total; startAt += pageSize) {
+                int offset = startAt;
+                pages.add(executor.submit(() -> fetchPage(baseUrl, offset, useCache).getTickets()));
+            }
+
+            for (Future<List<Ticket>> page : pages)
+                addTickets(page.get());
+            return true;
+        } catch (ExecutionException e) {
+            log.error("Unable to retrieve tickets IDs: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            log.error("Interrupted while retrieving tickets");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return false;
+    }
+
+    /**
+     * Fetches a single page of search results, within the per-host rate limit of the utils. The issues are streamed
+     * and turned into tickets one at a time, so the whole page is never held as a JSON tree
+     */
+    private TicketPage fetchPage(String baseUrl, int startAt, boolean useCache) throws IOException {
+        String url = String.format(baseUrl, startAt, pageSize);
+        long pageStart = PAGE_TIMER.start();
+        List<Ticket> page = new ArrayList<>(pageSize);
+        JSONObject otherFields = jsonUtils.streamJsonArrayFieldFromUrl(url, "issues", issue -> {
+            long decodeStart = DECODE_TIMER.start();
+            page.add(getTicketFromJson(issue));
+            DECODE_TIMER.stop(decodeStart);
+        }, useCache);
+        PAGE_TIMER.stop(pageStart);
+        PAGES.increment();
+        PAGE_ISSUES.record(page.size());
+        TICKETS_DECODED.add(page.size());
+        return new TicketPage(otherFields.getInt("total"), page);
+    }
+
+    private void addTickets(List<Ticket> page) {
+        for (Ticket ticket : page) {
+            tickets.add(ticket);
+            if (ticket.getFixed() == null)
+                ticketsWithNoFixRelease.add(ticket);
+        }
+    }
+
     public void setFixReleaseToTickets() {
         List<Release> availableReleases = ReleasesManager.getReleases();
 
@@ -121,7 +353,7 @@ public class JiraTicketsManager{
      * @param ticketJson the JSON of the ticket
      * @return a ticket object
      */
-    private Ticket getTicketFromJson(JSONObject ticketJson) {
+    Ticket getTicketFromJson(JSONObject ticketJson) {
         JSONObject fields = ticketJson.getJSONObject("fields");
         LocalDate issuedDate = LocalDateTime.parse(fields.getString("created"), formatter).toLocalDate();
         LocalDate closedDate;
@@ -139,15 +371,38 @@ public class JiraTicketsManager{
         Ticket ticket = new Ticket(ticketJson.getString("id"), ticketJson.getString("key"), issuedDate, closedDate, issueType, status, assignee);
         ticket.setResolution(resolutionType);
 
-        Release fixRelease = getFixReleaseFromTicketJson(ticketJson);
-        ticket.setFixed(fixRelease);
-        if (fixRelease == null)
-            ticketsWithNoFixRelease.add(ticket);
+        ticket.setFixed(getFixReleaseFromTicketJson(ticketJson));
+        ticket.setInjected(getInjectedReleaseFromTicketJson(ticketJson));
 
         return ticket;
     }
 
-    private Release getFixReleaseFromTicketJson(JSONObject ticketJson) {
+    private Release getReleaseById(String releaseId) {
+        for (Release release : ReleasesManager.getReleases())
+            if (release.getId().equals(releaseId)) return release;
+        return null;
+    }
+
+    /**
+     * Returns the earliest of the affected versions of the ticket, taken as the injected version
+     *
+     * @param ticketJson the JSON of the ticket
+     * @return the injected release, or null if no affected version is known
+     */
+    Release getInjectedReleaseFromTicketJson(JSONObject ticketJson) {
+        JSONArray affectedReleasesArray = ticketJson.getJSONObject("fields").optJSONArray("versions");
+        if (affectedReleasesArray == null) return null;
+
+        Release injectedRelease = null;
+        for (int i = 0; i < affectedReleasesArray.length(); i++) {
+            Release release = getReleaseById(affectedReleasesArray.getJSONObject(i).getString("id"));
+            if (release != null && (injectedRelease == null || release.getReleaseDate().isBefore(injectedRelease.getReleaseDate())))
+                injectedRelease = release;
+        }
+        return injectedRelease;
+    }
+
+    Release getFixReleaseFromTicketJson(JSONObject ticketJson) {
         JSONArray fixReleasesArray = ticketJson.getJSONObject("fields").getJSONArray("fixVersions");
 
         if (fixReleasesArray == null || fixReleasesArray.isEmpty()) {
@@ -180,47 +435,62 @@ public class JiraTicketsManager{
      * Builds a URL to query the Jira REST API according to some filters
      *
      * @param ticketFilter the filter with fields
+     * @param updatedSince if not null, only tickets updated on or after this date are searched
      * @return the URL with filters set
      */
-    private String buildUrlFromFilter(TicketFilter ticketFilter) {
-        StringBuilder url = new StringBuilder(baseUrl + "search?jql=project=\"" + projectName + "\"");
+    private String buildUrlFromFilter(TicketFilter ticketFilter, LocalDate updatedSince) {
+        StringBuilder jql = new StringBuilder("project=\"" + projectName + "\"");
 
         if (ticketFilter.getStatuses() != null && !ticketFilter.getStatuses().isEmpty()) {
-            url.append("AND(");
+            jql.append("AND(");
             boolean first = true;
             for (TicketStatus status : ticketFilter.getStatuses()) {
-                if (!first) url.append("OR");
-                url.append("\"status\"=\"").append(status.getStatus()).append("\"");
+                if (!first) jql.append("OR");
+                jql.append("\"status\"=\"").append(status.getStatus()).append("\"");
                 first = false;
             }
-            url.append(")");
+            jql.append(")");
         }
 
         if (ticketFilter.getTypes() != null && !ticketFilter.getTypes().isEmpty()) {
-            url.append("AND(");
+            jql.append("AND(");
             boolean first = true;
             for (TicketType type : ticketFilter.getTypes()) {
-                if (!first) url.append("OR");
-                url.append("\"issueType\"=\"").append(type).append("\"");
+                if (!first) jql.append("OR");
+                jql.append("\"issueType\"=\"").append(type).append("\"");
                 first = false;
             }
-            url.append(")");
+            jql.append(")");
         }
 
         if (ticketFilter.getResolutions() != null && !ticketFilter.getResolutions().isEmpty()) {
-            url.append("AND(");
+            jql.append("AND(");
             boolean first = true;
             for (ResolutionType type : ticketFilter.getResolutions()) {
-                if (!first) url.append("OR");
-                url.append("\"resolution\"=\"").append(type).append("\"");
+                if (!first) jql.append("OR");
+                jql.append("\"resolution\"=\"").append(type).append("\"");
                 first = false;
             }
-            url.append(")");
+            jql.append(")");
         }
 
-        url.append("&startAt=%d&maxResults=%d");
+        if (updatedSince != null)
+            jql.append("AND\"updated\">=\"").append(updatedSince).append("\"");
+
+        // Percent-encoded, then escaped for the page placeholders
+        String encodedJql = URLEncoder.encode(jql.toString(), StandardCharsets.UTF_8).replace("%", "%%");
 
-        return url.toString();
+        return baseUrl + "search?jql=" + encodedJql + "&startAt=%d&maxResults=%d";
+    }
+
+    /**
+     * A page of search results: the tickets it contains and the total number of matching issues
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class TicketPage {
+        private final int total;
+        private final List<Ticket> tickets;
     }
 
 }
\ No newline at end of file
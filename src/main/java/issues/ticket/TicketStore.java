@@ -0,0 +1,144 @@
+package issues.ticket;
+
+import issues.model.*;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A local store of tickets, persisted as JSON, used to sync only the tickets updated since the last run.
+ * Tickets are replaced by key; fix releases are stored by id and resolved against the current releases on load
+ */
+@Slf4j
+public class TicketStore {
+
+    private final Path file;
+
+    // Ticket key -> ticket, in insertion order
+    private final Map<String, Ticket> tickets = new LinkedHashMap<>();
+
+    /**
+     * The date of the last successful sync, or null if the store has never been synced
+     */
+    @Getter
+    private LocalDate highWaterMark;
+
+    private TicketStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the store from the given file, returning an empty store if the file doesn't exist or can't be read
+     *
+     * @param file            the store file
+     * @param releasesById    resolves a release id to the current release, or null if unknown
+     * @return the loaded store
+     */
+    public static TicketStore load(Path file, Function<String, Release> releasesById) {
+        TicketStore store = new TicketStore(file);
+        if (!Files.exists(file)) return store;
+
+        try {
+            JSONObject json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+            JSONArray stored = json.getJSONArray("tickets");
+            for (int i = 0; i < stored.length(); i++) {
+                Ticket ticket = fromJson(stored.getJSONObject(i), releasesById);
+                store.tickets.put(JiraTicketsManager.normalizeKey(ticket.getKey()), ticket);
+            }
+            if (json.has("highWaterMark"))
+                store.highWaterMark = LocalDate.parse(json.getString("highWaterMark"));
+        } catch (IOException | JSONException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable ticket store {}: {}", file, e.getMessage());
+            store.tickets.clear();
+            store.highWaterMark = null;
+        }
+        return store;
+    }
+
+    /**
+     * Adds the given tickets that match the filter, replacing the stored ones with the same key, and removes
+     * the stored tickets that were changed so that they no longer match
+     *
+     * @param changed the tickets fetched since the last sync, whether they match the filter or not
+     * @param filter  the filter of the store
+     */
+    public void merge(Collection<Ticket> changed, TicketFilter filter) {
+        for (Ticket ticket : changed) {
+            String key = JiraTicketsManager.normalizeKey(ticket.getKey());
+            if (filter.matches(ticket)) tickets.put(key, ticket);
+            else tickets.remove(key);
+        }
+    }
+
+    /**
+     * @return the stored tickets
+     */
+    public List<Ticket> getTickets() {
+        return new ArrayList<>(tickets.values());
+    }
+
+    /**
+     * Advances the high-water mark and writes the store to disk
+     *
+     * @param syncedOn the date of the sync that has just completed
+     * @throws IOException in case of errors while writing the file
+     */
+    public void save(LocalDate syncedOn) throws IOException {
+        highWaterMark = syncedOn;
+
+        JSONArray stored = new JSONArray();
+        for (Ticket ticket : tickets.values())
+            stored.put(toJson(ticket));
+        JSONObject json = new JSONObject();
+        json.put("highWaterMark", highWaterMark.toString());
+        json.put("tickets", stored);
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, json.toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static JSONObject toJson(Ticket ticket) {
+        JSONObject json = new JSONObject();
+        json.put("id", ticket.getId());
+        json.put("key", ticket.getKey());
+        json.put("issueDate", ticket.getIssueDate().toString());
+        json.put("closedDate", ticket.getClosedDate().toString());
+        json.put("type", ticket.getType().name());
+        json.put("status", ticket.getStatus().name());
+        json.put("assignee", ticket.getAssignee());
+        if (ticket.getResolution() != null) json.put("resolution", ticket.getResolution().name());
+        if (ticket.getSummary() != null) json.put("summary", ticket.getSummary());
+        if (ticket.getFixed() != null) json.put("fixed", ticket.getFixed().getId());
+        if (ticket.getInjected() != null) json.put("injected", ticket.getInjected().getId());
+        return json;
+    }
+
+    private static Ticket fromJson(JSONObject json, Function<String, Release> releasesById) {
+        Ticket ticket = new Ticket(json.getString("id"), json.getString("key"),
+                LocalDate.parse(json.getString("issueDate")), LocalDate.parse(json.getString("closedDate")),
+                TicketType.valueOf(json.getString("type")), TicketStatus.valueOf(json.getString("status")),
+                json.getString("assignee"));
+        if (json.has("resolution")) ticket.setResolution(ResolutionType.valueOf(json.getString("resolution")));
+        if (json.has("summary")) ticket.setSummary(json.getString("summary"));
+        if (json.has("fixed")) ticket.setFixed(releasesById.apply(json.getString("fixed")));
+        if (json.has("injected")) ticket.setInjected(releasesById.apply(json.getString("injected")));
+        return ticket;
+    }
+}
@@ -0,0 +1,36 @@
+package metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, e.g. of pages fetched. Does nothing when metrics are disabled
+ */
+public class Counter {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String help;
+    private final boolean enabled;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String help, boolean enabled) {
+        this.name = name;
+        this.help = help;
+        this.enabled = enabled;
+    }
+
+    public void increment() {
+        if (enabled) count.increment();
+    }
+
+    public void add(long amount) {
+        if (enabled) count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,22 @@
+package metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value read when the metrics are exported, e.g. the heap in use or a cache hit rate
+ */
+@Getter
+@AllArgsConstructor
+public class Gauge {
+
+    private final String name;
+    private final String help;
+    private final DoubleSupplier value;
+
+    public double getValue() {
+        return value.getAsDouble();
+    }
+}
@@ -0,0 +1,74 @@
+package metrics;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The distribution of observed values, e.g. issues per page, as counts in fixed buckets plus their count, sum
+ * and maximum. Recording is lock-free. Does nothing when metrics are disabled
+ */
+public class Histogram {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String help;
+    private final boolean enabled;
+    // Inclusive upper bounds, ascending; the last bucket is unbounded
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+    private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+
+    Histogram(String name, String help, boolean enabled, double[] bounds) {
+        this.name = name;
+        this.help = help;
+        this.enabled = enabled;
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.buckets = new LongAdder[this.bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(double value) {
+        if (!enabled) return;
+        int bucket = Arrays.binarySearch(bounds, value);
+        buckets[bucket >= 0 ? bucket : -bucket - 1].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the largest value recorded, or NaN if none
+     */
+    public double getMax() {
+        return getCount() == 0 ? Double.NaN : max.get();
+    }
+
+    double[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * @return the count of each bucket, not cumulated, the last one being the unbounded bucket
+     */
+    long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) counts[i] = buckets[i].sum();
+        return counts;
+    }
+}
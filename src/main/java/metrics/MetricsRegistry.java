@@ -0,0 +1,230 @@
+package metrics;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import properties.PropertiesManager;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The metrics of a run: counters, timers, histograms and gauges of each stage of the pipeline, exported at the
+ * end of the run as a JSON summary and in the Prometheus text format.
+ * <p>
+ * Metrics are enabled by "info.metrics.enabled". When disabled, the registry still hands out metrics, but they
+ * record nothing: classes can hold them in static fields and update them unconditionally
+ */
+@Slf4j
+public class MetricsRegistry {
+
+    private static final String DEFAULT_DIR = ".metrics";
+
+    private static MetricsRegistry instance;
+
+    @Getter
+    private final boolean enabled;
+    private final Instant start = Instant.now();
+    private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+    private MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            gauge("jvm_heap_used_bytes", "Heap in use", () -> memory.getHeapMemoryUsage().getUsed());
+            gauge("jvm_heap_committed_bytes", "Heap committed by the JVM", () -> memory.getHeapMemoryUsage().getCommitted());
+            gauge("jvm_heap_max_bytes", "Maximum heap", () -> memory.getHeapMemoryUsage().getMax());
+        }
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            String enabled = PropertiesManager.getInstance().getProperty("info.metrics.enabled");
+            instance = new MetricsRegistry(enabled != null && Boolean.parseBoolean(enabled.trim()));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the counter with the given name, registering it on first use
+     *
+     * @param name the name, in Prometheus style, e.g. "jira_pages_total"
+     * @param help what is counted
+     */
+    public synchronized Counter counter(String name, String help) {
+        return register(name, Counter.class, () -> new Counter(name, help, enabled));
+    }
+
+    /**
+     * Returns the timer with the given name, registering it on first use
+     *
+     * @param name the name, in Prometheus style, e.g. "jira_page_fetch_seconds"
+     * @param help what is timed
+     */
+    public synchronized Timer timer(String name, String help) {
+        return register(name, Timer.class, () -> new Timer(name, help, enabled));
+    }
+
+    /**
+     * Returns the histogram with the given name, registering it on first use
+     *
+     * @param name   the name, in Prometheus style, e.g. "jira_page_issues"
+     * @param help   what is observed
+     * @param bounds the inclusive upper bounds of the buckets
+     */
+    public synchronized Histogram histogram(String name, String help, double... bounds) {
+        return register(name, Histogram.class, () -> new Histogram(name, help, enabled, bounds));
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name. Does nothing when metrics are disabled
+     *
+     * @param name  the name, in Prometheus style, e.g. "git_blob_cache_hit_rate"
+     * @param help  what is measured
+     * @param value the supplier of the value, read on export
+     */
+    public synchronized void gauge(String name, String help, DoubleSupplier value) {
+        if (enabled) metrics.put(name, new Gauge(name, help, value));
+    }
+
+    private <T> T register(String name, Class<T> type, Supplier<T> factory) {
+        Object metric = metrics.get(name);
+        if (metric == null) {
+            metric = factory.get();
+            if (enabled) metrics.put(name, metric);
+        }
+        if (!type.isInstance(metric))
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + metric.getClass().getSimpleName());
+        return type.cast(metric);
+    }
+
+    /**
+     * Writes the JSON summary and the Prometheus file of the metrics to the directory configured by
+     * "info.metrics.dir", named after the project. Does nothing when metrics are disabled
+     */
+    public void dump() {
+        if (!enabled) return;
+        PropertiesManager properties = PropertiesManager.getInstance();
+        String directory = properties.getProperty("info.metrics.dir");
+        String name = properties.getProperty("info.name");
+        Path dir = Path.of(directory == null || directory.isBlank() ? DEFAULT_DIR : directory.trim());
+        String prefix = (name == null || name.isBlank() ? "run" : name.trim()) + "-metrics";
+        try {
+            Files.createDirectories(dir);
+            writeJson(dir.resolve(prefix + ".json"));
+            writePrometheus(dir.resolve(prefix + ".prom"));
+            log.info("Metrics written to {}", dir.resolve(prefix + ".*"));
+        } catch (IOException e) {
+            log.error("Unable to write the metrics to {} : {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a JSON summary: the count, sum, mean and maximum of each timer and histogram, with its buckets
+     * (not cumulated), the value of each counter and gauge
+     */
+    public synchronized void writeJson(Path file) throws IOException {
+        JSONObject counters = new JSONObject();
+        JSONObject timers = new JSONObject();
+        JSONObject histograms = new JSONObject();
+        JSONObject gauges = new JSONObject();
+        for (Object metric : metrics.values()) {
+            if (metric instanceof Counter counter) counters.put(counter.getName(), counter.getCount());
+            else if (metric instanceof Timer timer) timers.put(timer.getName(), summarize(timer.getSeconds()));
+            else if (metric instanceof Histogram histogram) histograms.put(histogram.getName(), summarize(histogram));
+            else if (metric instanceof Gauge gauge) gauges.put(gauge.getName(), jsonNumber(gauge.getValue()));
+        }
+
+        JSONObject summary = new JSONObject();
+        summary.put("start", start.toString());
+        summary.put("durationSeconds", Duration.between(start, Instant.now()).toMillis() / 1000.0);
+        summary.put("timers", timers);
+        summary.put("counters", counters);
+        summary.put("histograms", histograms);
+        summary.put("gauges", gauges);
+        Files.writeString(file, summary.toString(2), StandardCharsets.UTF_8);
+    }
+
+    private static JSONObject summarize(Histogram histogram) {
+        JSONObject summary = new JSONObject();
+        long count = histogram.getCount();
+        summary.put("count", count);
+        summary.put("sum", histogram.getSum());
+        summary.put("mean", count == 0 ? JSONObject.NULL : histogram.getSum() / count);
+        summary.put("max", jsonNumber(histogram.getMax()));
+
+        // An array, so that the buckets keep their order
+        JSONArray buckets = new JSONArray();
+        double[] bounds = histogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        for (int i = 0; i < counts.length; i++)
+            buckets.put(new JSONObject().put("le", i < bounds.length ? formatNumber(bounds[i]) : "+Inf").put("count", counts[i]));
+        summary.put("buckets", buckets);
+        return summary;
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format, e.g. for the node exporter's textfile
+     * collector. Timers and histograms are exported as histograms with cumulative buckets
+     */
+    public synchronized void writePrometheus(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Object metric : metrics.values()) {
+                if (metric instanceof Counter counter) {
+                    writeHeader(writer, counter.getName(), counter.getHelp(), "counter");
+                    writer.write(counter.getName() + " " + counter.getCount() + "\n");
+                } else if (metric instanceof Timer timer) {
+                    writeHistogram(writer, timer.getSeconds());
+                } else if (metric instanceof Histogram histogram) {
+                    writeHistogram(writer, histogram);
+                } else if (metric instanceof Gauge gauge) {
+                    writeHeader(writer, gauge.getName(), gauge.getHelp(), "gauge");
+                    writer.write(gauge.getName() + " " + formatNumber(gauge.getValue()) + "\n");
+                }
+            }
+        }
+    }
+
+    private static void writeHistogram(Writer writer, Histogram histogram) throws IOException {
+        String name = histogram.getName();
+        writeHeader(writer, name, histogram.getHelp(), "histogram");
+        double[] bounds = histogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String bound = i < bounds.length ? formatNumber(bounds[i]) : "+Inf";
+            writer.write(name + "_bucket{le=\"" + bound + "\"} " + cumulative + "\n");
+        }
+        writer.write(name + "_sum " + formatNumber(histogram.getSum()) + "\n");
+        writer.write(name + "_count " + histogram.getCount() + "\n");
+    }
+
+    private static void writeHeader(Writer writer, String name, String help, String type) throws IOException {
+        writer.write("# HELP " + name + " " + help.replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static String formatNumber(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    private static Object jsonNumber(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? JSONObject.NULL : value;
+    }
+}
@@ -0,0 +1,50 @@
+package metrics;
+
+import lombok.Getter;
+
+/**
+ * The durations of a stage, e.g. fetching a page, as a histogram in seconds. Meant to be used as
+ * <pre>
+ * long start = timer.start();
+ * ...
+ * timer.stop(start);
+ * </pre>
+ * so that nothing is allocated, and not even the clock is read when metrics are disabled
+ */
+public class Timer {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+    // From ten microseconds, e.g. decoding a ticket, to ten minutes
+    static final double[] SECONDS_BOUNDS = {0.00001, 0.0001, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 60, 600};
+
+    private final boolean enabled;
+    @Getter
+    private final Histogram seconds;
+
+    Timer(String name, String help, boolean enabled) {
+        this.enabled = enabled;
+        this.seconds = new Histogram(name, help, enabled, SECONDS_BOUNDS);
+    }
+
+    /**
+     * @return the start of the measure, to pass to {@link #stop}
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since the given start
+     */
+    public void stop(long start) {
+        if (enabled) record(System.nanoTime() - start);
+    }
+
+    public void record(long nanos) {
+        seconds.record(nanos / NANOS_PER_SECOND);
+    }
+
+    public String getName() {
+        return seconds.getName();
+    }
+}
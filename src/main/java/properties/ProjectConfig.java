@@ -0,0 +1,62 @@
+package properties;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The settings identifying a project: its Jira name, the Jira REST API, the local repository and the ticket keys
+ * used in its commit messages. Lets the managers of several projects live side by side
+ */
+@Getter
+@AllArgsConstructor
+public class ProjectConfig {
+
+    private final String name;
+    private final String jiraBaseUrl;
+    // Null if the project's repository isn't available
+    private final String repoPath;
+    private final List<String> projectKeys;
+
+    /**
+     * Returns the project configured by "info.name", "info.jira.baseUrl", "info.repo.path" and
+     * "info.ticket.projectKeys"
+     *
+     * @return the configured project
+     */
+    public static ProjectConfig fromProperties() {
+        PropertiesManager properties = PropertiesManager.getInstance();
+        String name = properties.getProperty("info.name");
+        return new ProjectConfig(name,
+                properties.getProperty("info.jira.baseUrl"),
+                properties.getProperty("info.repo.path"),
+                parseKeys(properties.getProperty("info.ticket.projectKeys"), name));
+    }
+
+    /**
+     * Returns another project on the same Jira instance. Its repository and ticket keys are read from
+     * "info.project.NAME.repo.path" and "info.project.NAME.projectKeys", if set
+     *
+     * @param name the Jira name of the project, e.g. "ZOOKEEPER"
+     * @return the project
+     */
+    public static ProjectConfig forProject(String name) {
+        PropertiesManager properties = PropertiesManager.getInstance();
+        String prefix = "info.project." + name.toUpperCase(Locale.ROOT) + ".";
+        return new ProjectConfig(name,
+                properties.getProperty("info.jira.baseUrl"),
+                properties.getProperty(prefix + "repo.path"),
+                parseKeys(properties.getProperty(prefix + "projectKeys"), name));
+    }
+
+    /**
+     * Splits a comma-separated list of ticket keys, defaulting to the project name
+     */
+    private static List<String> parseKeys(String keys, String name) {
+        if (keys == null || keys.isBlank()) return List.of(name);
+        return Arrays.stream(keys.split(",")).map(String::trim).filter(key -> !key.isEmpty()).toList();
+    }
+}
@@ -19,7 +19,7 @@ public class PropertiesManager {
         loadProperties();
     }
 
-    public static PropertiesManager getInstance() {
+    public static synchronized PropertiesManager getInstance() {
         if (instance == null) {
             instance = new PropertiesManager();
         }
@@ -47,5 +47,29 @@ public class PropertiesManager {
         return properties.get(propertyName);
     }
 
+    /**
+     * Returns the value of a property as an int
+     *
+     * @param propertyName the name of the property
+     * @param defaultValue the value returned when the property is missing or blank
+     * @return the value of the property
+     */
+    public int getIntProperty(String propertyName, int defaultValue) {
+        String value = properties.get(propertyName);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Returns the value of a property as a double
+     *
+     * @param propertyName the name of the property
+     * @param defaultValue the value returned when the property is missing or blank
+     * @return the value of the property
+     */
+    public double getDoubleProperty(String propertyName, double defaultValue) {
+        String value = properties.get(propertyName);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+    }
+
 }
 
@@ -0,0 +1,119 @@
+package vcs.commit;
+
+import metrics.MetricsRegistry;
+import metrics.Timer;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import vcs.model.MethodSpan;
+import vcs.parser.JavaMethodLocator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of decoded blobs and of the methods located in them, keyed by blob id and shared by all the
+ * analyzer threads. Since blobs are immutable, a file left unchanged across many commits is read and parsed once.
+ * Entries are weighted by the size of their decoded content and evicted in least recently used order
+ */
+class BlobCache {
+
+    private static final Timer READ_TIMER = MetricsRegistry.getInstance().timer("git_blob_read_seconds", "Time to read and decode a blob missing from the cache");
+    private static final Timer EXTRACTION_TIMER = MetricsRegistry.getInstance().timer("git_method_extraction_seconds", "Time to locate the methods of a blob");
+
+    private final long maxBytes;
+    private final LinkedHashMap<ObjectId, Blob> blobs = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    BlobCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the blob with the given id, reading it with the caller's reader if it isn't cached
+     *
+     * @param blobId the id of the blob
+     * @param reader the reader of the calling thread
+     * @return the decoded blob
+     * @throws IOException if the blob can't be read
+     */
+    Blob get(ObjectId blobId, ObjectReader reader) throws IOException {
+        synchronized (this) {
+            Blob cached = blobs.get(blobId);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // Read outside the lock: two threads may decode the same blob, but never block each other on I/O
+        long start = READ_TIMER.start();
+        Blob blob = new Blob(new String(reader.open(blobId).getBytes(), StandardCharsets.UTF_8));
+        READ_TIMER.stop(start);
+        synchronized (this) {
+            Blob previous = blobs.putIfAbsent(blobId.copy(), blob);
+            if (previous != null) return previous;
+
+            totalBytes += blob.weight();
+            Iterator<Blob> it = blobs.values().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                totalBytes -= it.next().weight();
+                it.remove();
+            }
+        }
+        return blob;
+    }
+
+    /**
+     * @return the fraction of lookups served from the cache
+     */
+    synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /**
+     * The content of a blob and the methods declared in it, located on first use
+     */
+    static class Blob {
+
+        private final String content;
+        private List<MethodSpan> methods;
+        private Map<String, MethodSpan> methodsBySignature;
+
+        Blob(String content) {
+            this.content = content;
+        }
+
+        String getContent() {
+            return content;
+        }
+
+        synchronized List<MethodSpan> getMethods() {
+            if (methods == null) {
+                long start = EXTRACTION_TIMER.start();
+                methods = JavaMethodLocator.locate(content);
+                EXTRACTION_TIMER.stop(start);
+            }
+            return methods;
+        }
+
+        synchronized Map<String, MethodSpan> getMethodsBySignature() {
+            if (methodsBySignature == null) {
+                methodsBySignature = new LinkedHashMap<>(getMethods().size() * 2);
+                for (MethodSpan span : getMethods()) methodsBySignature.put(span.getSignature(), span);
+            }
+            return methodsBySignature;
+        }
+
+        private long weight() {
+            // UTF-16 chars
+            return 2L * content.length();
+        }
+    }
+}
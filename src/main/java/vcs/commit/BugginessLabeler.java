@@ -0,0 +1,190 @@
+package vcs.commit;
+
+import issues.model.Ticket;
+import issues.release.ReleaseIndex;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import vcs.model.ModifiedMethod;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Labels methods as buggy, SZZ-style: the methods that a fix commit modifies or deletes are taken to contain the
+ * bug, and are labeled buggy in the affected versions [IV, FV) of every ticket the commit fixes.
+ * <p>
+ * Fix commits are diffed in parallel by the analyzers of the {@link GitCommitManager}. The tickets and their links
+ * to commits come from {@link GitCommitManager#getCommitsWithTickets()}; tickets without an injected or a fix
+ * version, e.g. whose injected version wasn't estimated with proportion, are ignored. Methods are identified by
+ * their path, as the rows of the {@link ReleaseDatasetBuilder}: a method whose file was renamed on the mainline
+ * before the fix is also labeled under its earlier paths, in the affected releases that still had them. Each label
+ * also records when the bug became known, for walk-forward training sets that must not see tickets resolved after
+ * their test release
+ */
+@Slf4j
+public class BugginessLabeler {
+
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final GitCommitManager commitManager;
+
+    // Fix commits analyzed at a time, bounding the changes held in memory
+    @Getter
+    @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public BugginessLabeler(GitCommitManager commitManager) {
+        this.commitManager = commitManager;
+    }
+
+    /**
+     * Labels the methods touched by the fix commits
+     *
+     * @param releaseIndex the releases the dataset is built on, defining the release numbers
+     * @return the buggy releases of each method
+     * @throws IOException if there's an error accessing the Git repository
+     */
+    public BugginessLabels label(ReleaseIndex releaseIndex) throws IOException {
+        // Affected release numbers of each fix commit, as [IV, FV) intervals, with the first release after
+        // the ticket was resolved
+        Map<String, List<int[]>> affectedByCommit = new HashMap<>();
+        for (Map.Entry<String, List<Ticket>> entry : commitManager.getCommitTicketsIndex().entrySet()) {
+            for (Ticket ticket : entry.getValue()) {
+                int injected = releaseIndex.indexOf(ticket.getInjected());
+                int fixed = releaseIndex.indexOf(ticket.getFixed());
+                if (injected < 0 || fixed < 0 || injected >= fixed) continue;
+                int since = releaseIndex.firstReleaseAfter(ticket.getClosedDate());
+                affectedByCommit.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(new int[]{injected + 1, fixed + 1, since + 1});
+            }
+        }
+
+        List<RevCommit> fixCommits = new ArrayList<>();
+        try (RevWalk revWalk = new RevWalk(commitManager.getRepository())) {
+            for (String commitId : affectedByCommit.keySet())
+                fixCommits.add(revWalk.parseCommit(ObjectId.fromString(commitId)));
+        }
+
+        List<Rename> renames = fixCommits.isEmpty() ? List.of() : findRenames(releaseIndex);
+
+        Map<String, List<int[]>> intervals = new HashMap<>();
+        for (int from = 0; from < fixCommits.size(); from += batchSize) {
+            List<RevCommit> batch = fixCommits.subList(from, Math.min(fixCommits.size(), from + batchSize));
+            Map<String, List<ModifiedMethod>> analyzed = commitManager.analyzeCommits(batch, commitManager.getAnalysisWorkers());
+
+            for (RevCommit fix : batch) {
+                List<int[]> affected = affectedByCommit.get(fix.getName());
+                for (ModifiedMethod method : analyzed.get(fix.getName())) {
+                    if (method.getModificationType() != GitCommitManager.ModificationType.MODIFIED
+                            && method.getModificationType() != GitCommitManager.ModificationType.DELETED) continue;
+                    addIntervals(intervals, method.getFilePath(), method.getSignature(), affected, Integer.MAX_VALUE);
+                    labelEarlierPaths(intervals, fix, method, affected, renames);
+                }
+            }
+        }
+
+        BugginessLabels labels = new BugginessLabels(intervals);
+        log.info("Labeled {} buggy methods from {} fix commits", labels.size(), fixCommits.size());
+        return labels;
+    }
+
+    /**
+     * Follows the renames made before the fix back in time, labeling each earlier path of the method in the affected
+     * releases that still had it. A rename made by the fix itself leaves the old path in all the earlier releases
+     */
+    private static void labelEarlierPaths(Map<String, List<int[]>> intervals, RevCommit fix, ModifiedMethod method,
+                                          List<int[]> affected, List<Rename> renames) {
+        String path = method.getFilePath();
+        if (!method.getOldFilePath().equals(path)) {
+            path = method.getOldFilePath();
+            addIntervals(intervals, path, method.getSignature(), affected, Integer.MAX_VALUE);
+        }
+
+        // Releases from this number on no longer have the path
+        int endRelease = Integer.MAX_VALUE;
+        for (Rename rename : renames) {
+            if (rename.getCommitTime() > fix.getCommitTime() || rename.getCommitId().equals(fix.getName())
+                    || !rename.getNewPath().equals(path)) continue;
+            path = rename.getOldPath();
+            endRelease = Math.min(endRelease, rename.getFirstRelease());
+            addIntervals(intervals, path, method.getSignature(), affected, endRelease);
+        }
+    }
+
+    /**
+     * Adds the affected intervals of a method, cut at the given release number
+     */
+    private static void addIntervals(Map<String, List<int[]>> intervals, String path, String signature, List<int[]> affected, int endRelease) {
+        for (int[] interval : affected) {
+            int end = Math.min(interval[1], endRelease);
+            if (interval[0] < end)
+                intervals.computeIfAbsent(BugginessLabels.keyOf(path, signature), k -> new ArrayList<>())
+                        .add(new int[]{interval[0], end, interval[2]});
+        }
+    }
+
+    /**
+     * Lists the renames of Java files on the mainline, the first-parent history the dataset is built on, newest first
+     */
+    private List<Rename> findRenames(ReleaseIndex releaseIndex) throws IOException {
+        List<Rename> renames = new ArrayList<>();
+        Repository repository = commitManager.getRepository();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) return renames;
+
+        try (RevWalk revWalk = new RevWalk(repository);
+             DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            df.setRepository(repository);
+            df.setDetectRenames(true);
+            df.setPathFilter(PathSuffixFilter.create(".java"));
+            revWalk.setFirstParent(true);
+            revWalk.markStart(revWalk.parseCommit(head));
+
+            for (RevCommit commit : revWalk) {
+                if (commit.getParentCount() == 0) continue;
+                RevCommit parent = revWalk.parseCommit(commit.getParent(0));
+                for (DiffEntry diff : df.scan(parent.getTree(), commit.getTree())) {
+                    if (diff.getChangeType() != DiffEntry.ChangeType.RENAME) continue;
+                    // The first release built from a tree with the new path, as the builder cuts releases
+                    LocalDate date = LocalDate.ofInstant(Instant.ofEpochSecond(commit.getCommitTime()), ZoneId.systemDefault());
+                    int index = releaseIndex.fixVersionIndex(date);
+                    renames.add(new Rename(commit.getName(), commit.getCommitTime(), diff.getOldPath(), diff.getNewPath(),
+                            (index < 0 ? releaseIndex.size() : index) + 1));
+                }
+            }
+        }
+        renames.sort((r1, r2) -> Integer.compare(r2.getCommitTime(), r1.getCommitTime()));
+        log.info("Found {} renames of Java files on the mainline", renames.size());
+        return renames;
+    }
+
+    /**
+     * A file renamed by a mainline commit
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Rename {
+        private final String commitId;
+        private final int commitTime;
+        private final String oldPath;
+        private final String newPath;
+        // The 1-based number of the first release with the new path
+        private final int firstRelease;
+    }
+}
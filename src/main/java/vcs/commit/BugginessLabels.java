@@ -0,0 +1,129 @@
+package vcs.commit;
+
+import vcs.model.MethodMetrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The releases in which each method was buggy, stored per method as sorted, disjoint intervals of 1-based
+ * release numbers rather than as a method × release matrix. A lookup is a binary search over the intervals
+ * of the method.
+ * <p>
+ * Each interval also records since which release the bug is known, i.e. the first release after the ticket was
+ * resolved, so that a training set can be labeled only with what was known before its test release
+ */
+public class BugginessLabels {
+
+    /**
+     * Returned by {@link #buggySince} for methods that were not buggy in the release
+     */
+    public static final int NEVER = Integer.MAX_VALUE;
+
+    // Method key -> [start0, end0, since0, start1, end1, since1, ...], end-exclusive
+    private final Map<String, int[]> intervals;
+
+    /**
+     * @param rawIntervals the [start, end, since] intervals of each method, possibly overlapping
+     */
+    BugginessLabels(Map<String, List<int[]>> rawIntervals) {
+        this.intervals = new HashMap<>(rawIntervals.size() * 2);
+        for (Map.Entry<String, List<int[]>> entry : rawIntervals.entrySet())
+            intervals.put(entry.getKey(), segment(entry.getValue()));
+    }
+
+    /**
+     * Checks whether a method was buggy in a release
+     *
+     * @param filePath      the path of the method's file
+     * @param signature     the signature of the method
+     * @param releaseNumber the 1-based position of the release in date order
+     * @return true if the method was buggy in the release
+     */
+    public boolean isBuggy(String filePath, String signature, int releaseNumber) {
+        return buggySince(filePath, signature, releaseNumber) != NEVER;
+    }
+
+    /**
+     * Checks whether the method of a dataset row was buggy in its release
+     *
+     * @param row the row
+     * @return true if the method was buggy in the release
+     */
+    public boolean isBuggy(MethodMetrics row) {
+        return isBuggy(row.getFilePath(), row.getSignature(), row.getReleaseNumber());
+    }
+
+    /**
+     * Returns since which release it's known that a method was buggy in a release: a training set tested on
+     * release r may label the method buggy only if this is at most r
+     *
+     * @param filePath      the path of the method's file
+     * @param signature     the signature of the method
+     * @param releaseNumber the 1-based position of the release in date order
+     * @return the 1-based number of the first release knowing the bug, or {@link #NEVER} if not buggy
+     */
+    public int buggySince(String filePath, String signature, int releaseNumber) {
+        int[] segments = intervals.get(keyOf(filePath, signature));
+        if (segments == null) return NEVER;
+
+        // Last interval starting at or before the release
+        int lo = 0;
+        int hi = segments.length / 3;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments[3 * mid] <= releaseNumber) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo > 0 && releaseNumber < segments[3 * (lo - 1) + 1] ? segments[3 * (lo - 1) + 2] : NEVER;
+    }
+
+    /**
+     * @return the number of methods buggy in at least one release
+     */
+    public int size() {
+        return intervals.size();
+    }
+
+    static String keyOf(String filePath, String signature) {
+        return filePath + '#' + signature;
+    }
+
+    /**
+     * Splits the overlapping intervals into disjoint ones, each with the earliest release knowing any of the
+     * bugs covering it, and merges the adjacent ones known since the same release
+     */
+    private static int[] segment(List<int[]> raw) {
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        for (int[] interval : raw) {
+            boundaries.add(interval[0]);
+            boundaries.add(interval[1]);
+        }
+
+        int[] segments = new int[3 * boundaries.size()];
+        int n = 0;
+        Integer start = null;
+        for (int end : boundaries) {
+            if (start != null) {
+                int since = NEVER;
+                for (int[] interval : raw)
+                    if (interval[0] <= start && end <= interval[1]) since = Math.min(since, interval[2]);
+
+                if (since != NEVER) {
+                    if (n > 0 && segments[n - 2] == start && segments[n - 1] == since) {
+                        segments[n - 2] = end;
+                    } else {
+                        segments[n++] = start;
+                        segments[n++] = end;
+                        segments[n++] = since;
+                    }
+                }
+            }
+            start = end;
+        }
+        return Arrays.copyOf(segments, n);
+    }
+}
@@ -3,77 +3,146 @@ package vcs.commit;
 import issues.ticket.JiraTicketsManager;
 import issues.model.*;
 import properties.PropertiesManager;
+import properties.ProjectConfig;
 import vcs.model.CommitInfo;
+import vcs.model.MethodSpan;
 import vcs.model.ModifiedMethod;
+import vcs.model.TicketReferences;
+import vcs.parser.TicketIdScanner;
+import vcs.commit.BlobCache.Blob;
+import vcs.history.MethodHistoryStore;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import metrics.Timer;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
 import org.eclipse.jgit.diff.EditList;
 import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class GitCommitManager {
 
+    private static final int DEFAULT_BLOB_CACHE_MEGABYTES = 256;
+    private static final String DEFAULT_HISTORY_DIR = ".cache/history";
+
+    private static final Timer COMMITS_WITH_TICKETS_TIMER = MetricsRegistry.getInstance().timer("git_commits_with_tickets_seconds", "Time to link the commits to the retrieved tickets, retrieval included");
+    private static final Timer TICKET_SCAN_TIMER = MetricsRegistry.getInstance().timer("git_ticket_scan_seconds", "Time to scan a commit message for ticket references");
+    private static final Counter COMMITS = MetricsRegistry.getInstance().counter("git_commits_total", "Commits scanned for ticket references");
+    private static final Counter LINKED_COMMITS = MetricsRegistry.getInstance().counter("git_linked_commits_total", "Commits linked to at least one ticket");
+    private static final Counter COMMITS_WITHOUT_TICKET = MetricsRegistry.getInstance().counter("git_commits_without_ticket_total", "Commits whose message references no ticket");
+    private static final Counter UNKNOWN_TICKETS = MetricsRegistry.getInstance().counter("git_unknown_ticket_references_total", "Ticket references matching no retrieved ticket");
+    private static final Timer LOG_TIMER = MetricsRegistry.getInstance().timer("git_log_seconds", "Time to list the commits to analyze");
+    private static final Timer ANALYZE_TIMER = MetricsRegistry.getInstance().timer("git_analyze_commits_seconds", "Time to find the modified methods of a batch of commits");
+    private static final Timer COMMIT_DIFF_TIMER = MetricsRegistry.getInstance().timer("git_commit_diff_seconds", "Time to find the modified methods of a commit");
+    private static final Timer DIFF_SCAN_TIMER = MetricsRegistry.getInstance().timer("git_diff_scan_seconds", "Time to diff the tree of a commit against its parent");
+    private static final Histogram MODIFIED_METHODS = MetricsRegistry.getInstance().histogram("git_modified_methods_per_commit", "Modified methods found per commit", 0, 1, 5, 10, 50, 100, 500, 1000);
+
     @Getter
     private final String projectName;
 
     private final Repository repository;
     private final Git git;
-    private final Pattern ticketPattern;
+    private final TicketIdScanner ticketIdScanner;
     private final JiraTicketsManager ticketsManager;
 
+    @Getter
+    @Setter
+    private int analysisWorkers;
+
+    // Decoded file contents and their methods, shared by the analyzers
+    private final BlobCache blobCache;
+
+    // Normalized ticket key -> ticket, and commit id -> linked tickets
+    private final Map<String, Ticket> ticketIndex = new HashMap<>();
+    private final Map<String, List<Ticket>> commitTickets = new HashMap<>();
+
     /**
-     * Creates a new Git Commit Manager for the specified repository path and project name
+     * Creates a new Git Commit Manager for the configured repository path and project name
      *
      * @throws IOException if the repository can't be accessed
      */
     public GitCommitManager(JiraTicketsManager ticketsManager) throws IOException {
+        this(ticketsManager, ProjectConfig.fromProperties());
+    }
+
+    /**
+     * Creates a new Git Commit Manager for the repository and the ticket keys of the given project
+     *
+     * @throws IOException if the repository can't be accessed
+     */
+    public GitCommitManager(JiraTicketsManager ticketsManager, ProjectConfig project) throws IOException {
         this.ticketsManager = ticketsManager;
-        this.projectName = PropertiesManager.getInstance().getProperty("info.name");
+        this.projectName = project.getName();
 
         // Initialize the repository
-        String repoPath = PropertiesManager.getInstance().getProperty("info.repo.path");
+        String repoPath = project.getRepoPath();
+        if (repoPath == null) throw new IOException("No repository configured for project " + projectName);
         FileRepositoryBuilder builder = new FileRepositoryBuilder();
         repository = builder.setGitDir(new File(repoPath + "/.git")).readEnvironment().findGitDir().build();
 
         git = new Git(repository);
+        analysisWorkers = PropertiesManager.getInstance().getIntProperty("info.git.analysis.workers", Runtime.getRuntime().availableProcessors());
+        blobCache = new BlobCache(PropertiesManager.getInstance().getIntProperty("info.git.blobCache.maxMegabytes", DEFAULT_BLOB_CACHE_MEGABYTES) * 1024L * 1024L);
+        // One gauge per project: a gauge of the same name would replace the one of another project's manager
+        MetricsRegistry.getInstance().gauge(blobCacheGaugeName(projectName), "Share of blob lookups served from the blob cache of " + projectName, blobCache::getHitRate);
+
+        // Create a scanner to find ticket IDs in commit messages
+        // Format is typically PROJECT-123, e.g., "BOOKKEEPER-1234"; more project keys can be listed in "info.ticket.projectKeys"
+        ticketIdScanner = new TicketIdScanner(project.getProjectKeys());
+    }
 
-        // Create a regex pattern to find ticket IDs in commit messages
-        // Format is typically PROJECT-123, e.g., "BOOKKEEPER-1234"
-        ticketPattern = Pattern.compile("(" + projectName + "-\\d+)|(ISSUE\\s\\d+)|(#\\d+)", Pattern.CASE_INSENSITIVE);
+    /**
+     * Returns the name of the blob cache gauge of a project, e.g. "git_blob_cache_hit_rate_bookkeeper"
+     */
+    static String blobCacheGaugeName(String projectName) {
+        if (projectName == null || projectName.isBlank()) return "git_blob_cache_hit_rate";
+        return "git_blob_cache_hit_rate_" + projectName.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
     }
 
     /**
      * Retrieves all commits from the repository and associates them with ticket IDs
      */
     public void getCommitsWithTickets() {
+        long start = COMMITS_WITH_TICKETS_TIMER.start();
         // Retrieves all the tickets from the tickets manager
         TicketFilter filter = new TicketFilter();
         filter.setStatuses(List.of(TicketStatus.CLOSED, TicketStatus.RESOLVED));
@@ -81,7 +150,11 @@ public class GitCommitManager {
         filter.setResolutions(List.of(ResolutionType.FIXED));
 
         ticketsManager.retrieveTickets(filter);
-        List<Ticket> tickets = ticketsManager.getTickets();
+
+        // Index the tickets once, so that each extracted ID is resolved with a single lookup
+        ticketIndex.clear();
+        ticketIndex.putAll(ticketsManager.getTicketIndex());
+        commitTickets.clear();
 
         try {
             // Executes the `git log` command to retrieve all commits from the repository
@@ -91,48 +164,101 @@ public class GitCommitManager {
             // Iterate through all commits and extract ticket IDs from commit messages
             for (RevCommit commit : commits) {
                 String commitMessage = commit.getFullMessage();
-                List<String> ticketIds = extractTicketIds(commitMessage);
+                long scanStart = TICKET_SCAN_TIMER.start();
+                TicketReferences references = ticketIdScanner.scan(commitMessage);
+                TICKET_SCAN_TIMER.stop(scanStart);
+                COMMITS.increment();
 
-                if (ticketIds.isEmpty())
+                if (references.isEmpty()) {
+                    COMMITS_WITHOUT_TICKET.increment();
                     log.warn("No ticket IDs found in commit {}. Message: {}", commit.getId(), commitMessage);
+                } else if (references.getUnqualifiedNumbers().length > 0)
+                    log.debug("Ignoring references without a project key in commit {}: {}", commit.getName(), references);
 
                 CommitInfo commitInfo = new CommitInfo(commit.getName(), commit.getAuthorIdent().getName(), commit.getAuthorIdent().getEmailAddress(), LocalDate.ofInstant(Instant.ofEpochSecond(commit.getCommitTime()), ZoneId.systemDefault()), commitMessage);
 
                 // For each ticket ID found in the commit message
-                for (String ticketId : ticketIds) {
-                    // Check if any ticket in the ticket list has a matching key
-                    for (Ticket ticket : tickets) {
-                        if (ticketId.equalsIgnoreCase(ticket.getKey())) {
-                            if (ticket.getAssociatedCommits() == null) {
-                                ticket.setAssociatedCommits(new ArrayList<>(List.of(commitInfo)));
-                            } else {
-                                ticket.getAssociatedCommits().add(commitInfo);
-                            }
-                            break;
-                        }
+                for (String ticketId : references.getTicketKeys()) {
+                    Ticket ticket = ticketIndex.get(JiraTicketsManager.normalizeKey(ticketId));
+                    if (ticket == null) {
+                        UNKNOWN_TICKETS.increment();
+                        log.warn("No ticket found matching {} in commit {}", ticketId, commit.getName());
+                        continue;
                     }
-                    log.warn("No ticket found matching any of the following patterns: {}", ticketIds);
+
+                    if (ticket.getAssociatedCommits() == null) {
+                        ticket.setAssociatedCommits(new ArrayList<>(List.of(commitInfo)));
+                    } else {
+                        ticket.getAssociatedCommits().add(commitInfo);
+                    }
+                    commitTickets.computeIfAbsent(commitInfo.getCommitId(), k -> new ArrayList<>()).add(ticket);
                 }
             }
         } catch (GitAPIException e) {
             log.error("Error accessing Git repository: {}", e.getMessage(), e);
         }
+        LINKED_COMMITS.add(commitTickets.size());
+        COMMITS_WITH_TICKETS_TIMER.stop(start);
+    }
+
+    /**
+     * Returns the ticket with the given key, as indexed by the last call to {@link #getCommitsWithTickets()}
+     *
+     * @param ticketKey the ticket key (case-insensitive)
+     * @return the ticket, or null if no such ticket was retrieved
+     */
+    public Ticket getTicket(String ticketKey) {
+        return ticketIndex.get(JiraTicketsManager.normalizeKey(ticketKey));
+    }
+
+    /**
+     * Returns the commits linked to the given ticket
+     *
+     * @param ticketKey the ticket key (case-insensitive)
+     * @return the linked commits, or an empty list if none
+     */
+    public List<CommitInfo> getCommitsForTicket(String ticketKey) {
+        Ticket ticket = getTicket(ticketKey);
+        if (ticket == null || ticket.getAssociatedCommits() == null) return List.of();
+        return Collections.unmodifiableList(ticket.getAssociatedCommits());
+    }
+
+    /**
+     * Returns the tickets linked to the given commit
+     *
+     * @param commitId the full commit id
+     * @return the linked tickets, or an empty list if none
+     */
+    public List<Ticket> getTicketsForCommit(String commitId) {
+        List<Ticket> linked = commitTickets.get(commitId);
+        return linked == null ? List.of() : Collections.unmodifiableList(linked);
+    }
+
+    /**
+     * Returns the commit → tickets index built by the last call to {@link #getCommitsWithTickets()}
+     *
+     * @return an unmodifiable view of the index
+     */
+    public Map<String, List<Ticket>> getCommitTicketsIndex() {
+        return Collections.unmodifiableMap(commitTickets);
     }
 
     /**
-     * Extracts ticket IDs from a commit message
+     * Extracts ticket references from a commit message
      *
      * @param commitMessage the commit message to search
-     * @return list of ticket IDs found in the commit message
+     * @return the ticket numbers found in the commit message, per project key
      */
-    private List<String> extractTicketIds(String commitMessage) {
-        List<String> ticketIds = new ArrayList<>();
-        // Using the uppercase commit message to count all occurrences of the ticket IDs
-        Matcher matcher = ticketPattern.matcher(commitMessage.toUpperCase());
+    public TicketReferences extractTicketIds(String commitMessage) {
+        return ticketIdScanner.scan(commitMessage);
+    }
 
-        while (matcher.find()) if (!ticketIds.contains(matcher.group())) ticketIds.add(matcher.group());
+    Repository getRepository() {
+        return repository;
+    }
 
-        return ticketIds;
+    BlobCache getBlobCache() {
+        return blobCache;
     }
 
     /**
@@ -152,55 +278,75 @@ public class GitCommitManager {
      * @throws GitAPIException If there's an error executing Git commands
      */
     public List<ModifiedMethod> getModifiedJavaMethods(String commitId) throws IOException, GitAPIException {
-        List<ModifiedMethod> modifiedMethods = new ArrayList<>();
-
-        // Get the commit object
-        RevCommit commit = repository.parseCommit(repository.resolve(commitId));
-
-        // If it's the first commit, we don't have a parent to compare with
-        if (commit.getParentCount() == 0) {
-            // For the first commit, get all files added
-            try (Git git = new Git(repository)) {
-                RevTree tree = commit.getTree();
-                try (TreeWalk treeWalk = new TreeWalk(repository)) {
-                    treeWalk.addTree(tree);
+        try (CommitAnalyzer analyzer = new CommitAnalyzer()) {
+            return analyzer.getModifiedJavaMethods(repository.resolve(commitId));
+        }
+    }
+
+    /**
+     * Diffs commits against their first parent. Holds its own {@link ObjectReader}, {@link RevWalk} and
+     * {@link DiffFormatter}, none of which is thread-safe, so each worker thread must use its own analyzer
+     */
+    private class CommitAnalyzer implements AutoCloseable {
+
+        private final ObjectReader reader;
+        private final RevWalk revWalk;
+        private final DiffFormatter df;
+
+        // Whether copies are reported as added files and the unchanged methods of renamed files as RENAMED
+        private final boolean trackMoves;
+
+        CommitAnalyzer() {
+            this(false);
+        }
+
+        CommitAnalyzer(boolean trackMoves) {
+            this.trackMoves = trackMoves;
+            reader = repository.newObjectReader();
+            revWalk = new RevWalk(reader);
+            df = new DiffFormatter(DisabledOutputStream.INSTANCE);
+            df.setReader(reader, repository.getConfig());
+            df.setDiffComparator(RawTextComparator.DEFAULT);
+            df.setDetectRenames(true);
+        }
+
+        List<ModifiedMethod> getModifiedJavaMethods(ObjectId commitId) throws IOException {
+            long start = COMMIT_DIFF_TIMER.start();
+            List<ModifiedMethod> modifiedMethods = findModifiedJavaMethods(commitId);
+            COMMIT_DIFF_TIMER.stop(start);
+            MODIFIED_METHODS.record(modifiedMethods.size());
+            return modifiedMethods;
+        }
+
+        private List<ModifiedMethod> findModifiedJavaMethods(ObjectId commitId) throws IOException {
+            List<ModifiedMethod> modifiedMethods = new ArrayList<>();
+
+            // Get the commit object
+            RevCommit commit = revWalk.parseCommit(commitId);
+
+            // If it's the first commit, we don't have a parent to compare with
+            if (commit.getParentCount() == 0) {
+                // For the first commit, get all files added
+                try (TreeWalk treeWalk = new TreeWalk(reader)) {
+                    treeWalk.addTree(commit.getTree());
                     treeWalk.setRecursive(true);
-                    treeWalk.setFilter(PathFilter.create(".java"));
+                    treeWalk.setFilter(PathSuffixFilter.create(".java"));
 
                     while (treeWalk.next()) {
-                        String path = treeWalk.getPathString();
-                        if (path.endsWith(".java")) {
-                            // Get file content
-                            ObjectId objectId = treeWalk.getObjectId(0);
-                            try (ObjectReader reader = repository.newObjectReader()) {
-                                ObjectLoader loader = reader.open(objectId);
-                                byte[] bytes = loader.getBytes();
-                                String content = new String(bytes, StandardCharsets.UTF_8);
-
-                                // Extract all methods from the file
-                                List<String> methods = extractJavaMethods(content);
-                                for (String method : methods) {
-                                    modifiedMethods.add(new ModifiedMethod(path, method, ModificationType.ADDED));
-                                }
-                            }
-                        }
+                        // Extract all methods from the file
+                        addAllMethods(modifiedMethods, treeWalk.getPathString(), treeWalk.getPathString(), blobCache.get(treeWalk.getObjectId(0), reader), ModificationType.ADDED);
                     }
                 }
+                return modifiedMethods;
             }
-            return modifiedMethods;
-        }
-
-        // For non-first commits, compare with parent
-        RevCommit parentCommit = commit.getParent(0);
-        ObjectReader reader = repository.newObjectReader();
 
-        // Get the diff between this commit and its parent
-        try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-            df.setRepository(repository);
-            df.setDiffComparator(RawTextComparator.DEFAULT);
-            df.setDetectRenames(true);
+            // For non-first commits, compare with parent (parsed, so that its tree is available)
+            RevCommit parentCommit = revWalk.parseCommit(commit.getParent(0));
 
+            // Get the diff between this commit and its parent
+            long scanStart = DIFF_SCAN_TIMER.start();
             List<DiffEntry> diffs = df.scan(parentCommit.getTree(), commit.getTree());
+            DIFF_SCAN_TIMER.stop(scanStart);
 
             for (DiffEntry diff : diffs) {
                 // Only consider Java files
@@ -211,194 +357,342 @@ public class GitCommitManager {
                 // Get the edit list for this file
                 EditList editList = df.toFileHeader(diff).toEditList();
 
-                // Get old and new file content
-                String oldContent = "";
-                if (diff.getChangeType() != DiffEntry.ChangeType.ADD) {
-                    oldContent = getFileContent(parentCommit, diff.getOldPath());
+                // Get old and new file content, straight from the blob ids of the diff entry
+                Blob oldBlob = null;
+                boolean copyAsAdd = trackMoves && diff.getChangeType() == DiffEntry.ChangeType.COPY;
+                if (diff.getChangeType() != DiffEntry.ChangeType.ADD && !copyAsAdd) {
+                    oldBlob = getBlob(diff.getOldId(), parentCommit, diff.getOldPath());
                 }
 
-                String newContent = "";
+                Blob newBlob = null;
                 if (diff.getChangeType() != DiffEntry.ChangeType.DELETE) {
-                    newContent = getFileContent(commit, diff.getNewPath());
+                    newBlob = getBlob(diff.getNewId(), commit, diff.getNewPath());
+                }
+
+                // A copy leaves its source in place: when tracking moves, its methods are new methods
+                if (copyAsAdd) {
+                    addAllMethods(modifiedMethods, diff.getNewPath(), diff.getNewPath(), newBlob, ModificationType.ADDED);
+                    continue;
                 }
 
                 // Find modified methods based on the type of change
                 switch (diff.getChangeType()) {
                     case ADD:
                         // New file - all methods are added
-                        List<String> addedMethods = extractJavaMethods(newContent);
-                        for (String method : addedMethods) {
-                            modifiedMethods.add(new ModifiedMethod(diff.getNewPath(), method, ModificationType.ADDED));
-                        }
+                        addAllMethods(modifiedMethods, diff.getNewPath(), diff.getNewPath(), newBlob, ModificationType.ADDED);
                         break;
 
                     case DELETE:
                         // Deleted file - all methods are deleted
-                        List<String> deletedMethods = extractJavaMethods(oldContent);
-                        for (String method : deletedMethods) {
-                            modifiedMethods.add(new ModifiedMethod(diff.getOldPath(), method, ModificationType.DELETED));
-                        }
+                        addAllMethods(modifiedMethods, diff.getOldPath(), diff.getOldPath(), oldBlob, ModificationType.DELETED);
                         break;
 
                     case MODIFY:
                     case RENAME:
                     case COPY:
                         // For modified/renamed/copied files, we need to identify which methods were changed
-                        Map<String, String> oldMethods = extractJavaMethodsWithSignatures(oldContent);
-                        Map<String, String> newMethods = extractJavaMethodsWithSignatures(newContent);
+                        String oldContent = oldBlob.getContent();
+                        String newContent = newBlob.getContent();
+                        Map<String, MethodSpan> oldMethods = oldBlob.getMethodsBySignature();
+                        Map<String, MethodSpan> newMethods = newBlob.getMethodsBySignature();
 
                         // Methods in an old file but not in the new file were deleted
-                        for (Map.Entry<String, String> entry : oldMethods.entrySet()) {
+                        for (Map.Entry<String, MethodSpan> entry : oldMethods.entrySet()) {
                             if (!newMethods.containsKey(entry.getKey())) {
-                                modifiedMethods.add(new ModifiedMethod(diff.getOldPath(), entry.getValue(), ModificationType.DELETED));
+                                MethodSpan oldMethod = entry.getValue();
+                                modifiedMethods.add(new ModifiedMethod(diff.getOldPath(), entry.getKey(), oldMethod.textOf(oldContent), ModificationType.DELETED,
+                                        diff.getOldPath(), 0, lineCount(oldMethod)));
                             }
                         }
 
                         // Methods in new file but not in old file were added
-                        for (Map.Entry<String, String> entry : newMethods.entrySet()) {
-                            if (!oldMethods.containsKey(entry.getKey())) {
-                                modifiedMethods.add(new ModifiedMethod(diff.getNewPath(), entry.getValue(), ModificationType.ADDED));
-                            } else if (!oldMethods.get(entry.getKey()).equals(entry.getValue())) {
-                                // Method exists in both but content is different - modified
-                                modifiedMethods.add(new ModifiedMethod(diff.getNewPath(), entry.getValue(), ModificationType.MODIFIED));
+                        for (Map.Entry<String, MethodSpan> entry : newMethods.entrySet()) {
+                            MethodSpan newMethod = entry.getValue();
+                            MethodSpan oldMethod = oldMethods.get(entry.getKey());
+                            if (oldMethod == null) {
+                                modifiedMethods.add(new ModifiedMethod(diff.getNewPath(), entry.getKey(), newMethod.textOf(newContent), ModificationType.ADDED,
+                                        diff.getNewPath(), lineCount(newMethod), 0));
+                                continue;
+                            }
+
+                            int addedLines = countEditedLines(newMethod, editList, true);
+                            int deletedLines = countEditedLines(oldMethod, editList, false);
+                            if ((addedLines > 0 || deletedLines > 0) && !sameText(oldContent, oldMethod, newContent, newMethod)) {
+                                // Method exists in both, lies in an edited hunk and its content is different - modified.
+                                // Methods outside every hunk are unchanged and are never compared
+                                modifiedMethods.add(new ModifiedMethod(diff.getNewPath(), entry.getKey(), newMethod.textOf(newContent), ModificationType.MODIFIED,
+                                        diff.getOldPath(), addedLines, deletedLines));
+                            } else if (trackMoves && diff.getChangeType() == DiffEntry.ChangeType.RENAME) {
+                                // Unchanged, but moved along with its file
+                                modifiedMethods.add(new ModifiedMethod(diff.getNewPath(), entry.getKey(), newMethod.textOf(newContent), ModificationType.RENAMED,
+                                        diff.getOldPath(), 0, 0));
                             }
                         }
                         break;
                 }
             }
+
+            return modifiedMethods;
         }
 
-        return modifiedMethods;
-    }
+        /**
+         * Get a file blob by the id recorded in the diff entry, falling back to a lookup by path in the commit
+         * when the id is abbreviated
+         */
+        private Blob getBlob(AbbreviatedObjectId blobId, RevCommit commit, String path) throws IOException {
+            if (blobId.isComplete()) {
+                return blobCache.get(blobId.toObjectId(), reader);
+            }
 
-    /**
-     * Get the content of a file in a specific commit
-     */
-    private String getFileContent(RevCommit commit, String path) throws IOException {
-        try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, commit.getTree())) {
-            if (treeWalk == null) {
-                return "";
+            try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, commit.getTree())) {
+                if (treeWalk == null) {
+                    return new Blob("");
+                }
+                return blobCache.get(treeWalk.getObjectId(0), reader);
             }
+        }
 
-            ObjectId objectId = treeWalk.getObjectId(0);
-            ObjectLoader loader = repository.open(objectId);
-            byte[] bytes = loader.getBytes();
-            return new String(bytes, StandardCharsets.UTF_8);
+        @Override
+        public void close() {
+            df.close();
+            revWalk.close();
+            reader.close();
         }
     }
 
     /**
-     * Extracts method names from Java source code.
-     * Note: This is a simplified implementation that may not handle all Java syntax edge cases.
+     * Reports every method (and constructor) declared in a file with the same modification type
      */
-    private List<String> extractJavaMethods(String javaContent) {
-        List<String> methods = new ArrayList<>();
-
-        // Simple regex pattern to match method declarations
-        // This is a simplified approach and won't handle all possible Java syntax
-        Pattern methodPattern = Pattern.compile("(?:public|protected|private|static|\\s) +(?:[\\w<>\\[\\]]+\\s+)+(\\w+) *\\([^)]*\\) *(\\{?|[^;])");
-
-        Matcher matcher = methodPattern.matcher(javaContent);
-
-        while (matcher.find()) {
-            // Extract the method with its body using brace matching
-            int startPos = matcher.start();
-            if (startPos >= 0 && matcher.group().contains("{")) {
-                int openBraces = 1;
-                int pos = javaContent.indexOf('{', startPos) + 1;
-
-                while (openBraces > 0 && pos < javaContent.length()) {
-                    char c = javaContent.charAt(pos);
-                    if (c == '{') openBraces++;
-                    else if (c == '}') openBraces--;
-                    pos++;
-                }
-
-                if (pos <= javaContent.length()) {
-                    String method = javaContent.substring(startPos, pos).trim();
-                    methods.add(method);
-                }
-            }
+    private static void addAllMethods(List<ModifiedMethod> modifiedMethods, String path, String oldPath, Blob blob, ModificationType type) {
+        String content = blob.getContent();
+        for (MethodSpan span : blob.getMethods()) {
+            int lines = lineCount(span);
+            modifiedMethods.add(new ModifiedMethod(path, span.getSignature(), span.textOf(content), type, oldPath,
+                    type == ModificationType.ADDED ? lines : 0, type == ModificationType.DELETED ? lines : 0));
         }
-
-        return methods;
     }
 
     /**
-     * Extracts Java methods with their signatures as keys for comparison
+     * Returns the number of lines of a method declaration
      */
-    private Map<String, String> extractJavaMethodsWithSignatures(String javaContent) {
-        Map<String, String> methodMap = new HashMap<>();
-
-        // Pattern to match method signatures
-        Pattern methodPattern = Pattern.compile("(?:public|protected|private|static|\\s) +(?:[\\w<>\\[\\]]+\\s+)+(\\w+) *\\([^)]*\\) *(\\{?|[^;])");
-
-        Matcher matcher = methodPattern.matcher(javaContent);
-
-        while (matcher.find()) {
-            int startPos = matcher.start();
-            String methodSignature = matcher.group().trim();
-
-            // Extract method name and parameters for the key
-            String methodName = methodSignature.substring(methodSignature.lastIndexOf(' ') + 1, methodSignature.indexOf('('));
-            String parameters = methodSignature.substring(methodSignature.indexOf('('), methodSignature.lastIndexOf(')') + 1);
-            String key = methodName + parameters;
-
-            if (startPos >= 0 && methodSignature.contains("{")) {
-                int openBraces = 1;
-                int pos = javaContent.indexOf('{', startPos) + 1;
+    static int lineCount(MethodSpan method) {
+        return method.getEndLine() - method.getStartLine() + 1;
+    }
 
-                while (openBraces > 0 && pos < javaContent.length()) {
-                    char c = javaContent.charAt(pos);
-                    if (c == '{') openBraces++;
-                    else if (c == '}') openBraces--;
-                    pos++;
-                }
+    /**
+     * Counts the lines of a method that lie on one side of the edits
+     *
+     * @param method  the method span
+     * @param edits   the edits of the file, sorted by position as produced by the diff
+     * @param newSide true to count the added lines, on the new (B) side of the edits, false for the deleted lines,
+     *                on the old (A) side
+     * @return the number of edited lines falling inside the method
+     */
+    private static int countEditedLines(MethodSpan method, EditList edits, boolean newSide) {
+        // Edits cover the 0-based, end-exclusive line ranges [begin, end), i.e. the 1-based lines [begin + 1, end].
+        // Their ends grow with their index, so binary search the first edit ending at or after the method start
+        int lo = 0;
+        int hi = edits.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            Edit edit = edits.get(mid);
+            if ((newSide ? edit.getEndB() : edit.getEndA()) < method.getStartLine()) lo = mid + 1;
+            else hi = mid;
+        }
 
-                if (pos <= javaContent.length()) {
-                    String method = javaContent.substring(startPos, pos).trim();
-                    methodMap.put(key, method);
-                }
-            }
+        int lines = 0;
+        for (int i = lo; i < edits.size(); i++) {
+            Edit edit = edits.get(i);
+            int begin = newSide ? edit.getBeginB() : edit.getBeginA();
+            int end = newSide ? edit.getEndB() : edit.getEndA();
+            if (begin >= method.getEndLine()) break;
+            // Overlap of [begin, end) with the method's 0-based lines [startLine - 1, endLine)
+            lines += Math.max(0, Math.min(end, method.getEndLine()) - Math.max(begin, method.getStartLine() - 1));
         }
+        return lines;
+    }
 
-        return methodMap;
+    /**
+     * Compares the text of two methods without copying it
+     */
+    private static boolean sameText(String oldContent, MethodSpan oldMethod, String newContent, MethodSpan newMethod) {
+        int length = oldMethod.getEnd() - oldMethod.getStart();
+        return length == newMethod.getEnd() - newMethod.getStart()
+                && oldContent.regionMatches(oldMethod.getStart(), newContent, newMethod.getStart(), length);
     }
 
     /**
-     * Analyzes all commits to find all Java methods that were modified across the repository history
+     * Analyzes all commits to find all Java methods that were modified across the repository history,
+     * using the number of workers configured by "info.git.analysis.workers"
      *
-     * @return A map of commit IDs to lists of modified Java methods
+     * @return A map of commit IDs to lists of modified Java methods, in `git log` order
      * @throws IOException     If there's an error accessing the Git repository
      * @throws GitAPIException If there's an error executing Git commands
      */
     public Map<String, List<ModifiedMethod>> getAllCommitsModifiedMethods() throws IOException, GitAPIException {
-        Map<String, List<ModifiedMethod>> commitsWithModifiedMethods = new HashMap<>();
+        return getAllCommitsModifiedMethods(analysisWorkers);
+    }
 
+    /**
+     * Analyzes all commits to find all Java methods that were modified across the repository history.
+     * Commits are spread across the given number of workers, each with its own analyzer; the result is
+     * the same regardless of the number of workers
+     *
+     * @param workers the number of commits analyzed concurrently
+     * @return A map of commit IDs to lists of modified Java methods, in `git log` order
+     * @throws IOException     If there's an error accessing the Git repository
+     * @throws GitAPIException If there's an error executing Git commands
+     */
+    public Map<String, List<ModifiedMethod>> getAllCommitsModifiedMethods(int workers) throws IOException, GitAPIException {
+        List<RevCommit> commits = new ArrayList<>();
+        long logStart = LOG_TIMER.start();
         try {
             LogCommand logCommand = git.log();
-            Iterable<RevCommit> commits = logCommand.call();
-
-            for (RevCommit commit : commits) {
-                String commitId = commit.getName();
-                List<ModifiedMethod> modifiedMethods = getModifiedJavaMethods(commitId);
-
-                if (!modifiedMethods.isEmpty()) {
-                    commitsWithModifiedMethods.put(commitId, modifiedMethods);
-                }
-            }
+            logCommand.call().forEach(commits::add);
         } catch (GitAPIException e) {
             log.error("Error accessing Git repository: {}", e.getMessage(), e);
             throw e;
         }
+        LOG_TIMER.stop(logStart);
 
+        Map<String, List<ModifiedMethod>> commitsWithModifiedMethods = analyzeCommits(commits, workers);
+        commitsWithModifiedMethods.values().removeIf(List::isEmpty);
         return commitsWithModifiedMethods;
     }
 
+    /**
+     * Opens the method history store of the project, in the directory configured by "info.git.history.dir",
+     * and brings it up to date with HEAD
+     *
+     * @return the up-to-date store
+     * @throws IOException     If there's an error accessing the Git repository or writing the store
+     * @throws GitAPIException If there's an error executing Git commands
+     */
+    public MethodHistoryStore updateMethodHistory() throws IOException, GitAPIException {
+        String directory = PropertiesManager.getInstance().getProperty("info.git.history.dir");
+        Path file = Path.of(directory == null || directory.isBlank() ? DEFAULT_HISTORY_DIR : directory.trim(), projectName + ".mhs");
+        MethodHistoryStore store = MethodHistoryStore.open(file);
+        updateMethodHistory(store);
+        return store;
+    }
+
+    /**
+     * Brings the method history store up to date with HEAD, analyzing only the commits that are not reachable
+     * from the last indexed HEAD. If that commit no longer exists (e.g. the history was rewritten), the index
+     * is rebuilt from scratch
+     *
+     * @param store the store to update
+     * @throws IOException     If there's an error accessing the Git repository or writing the store
+     * @throws GitAPIException If there's an error executing Git commands
+     */
+    public void updateMethodHistory(MethodHistoryStore store) throws IOException, GitAPIException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) return;
+
+        LogCommand logCommand = git.log().add(head);
+        if (store.getLastHead() != null) {
+            ObjectId lastHead = ObjectId.fromString(store.getLastHead());
+            if (repository.getObjectDatabase().has(lastHead)) {
+                logCommand.not(lastHead);
+            } else {
+                log.warn("Last indexed HEAD {} no longer exists, rebuilding the method history", store.getLastHead());
+                store.clear();
+            }
+        }
+
+        List<RevCommit> commits = new ArrayList<>();
+        for (RevCommit commit : logCommand.call())
+            if (!store.contains(commit.getName())) commits.add(commit);
+        log.info("Indexing {} new commits ({} already indexed)", commits.size(), store.size());
+
+        // Index the oldest commits first
+        List<Map.Entry<String, List<ModifiedMethod>>> analyzed = new ArrayList<>(analyzeCommits(commits, analysisWorkers).entrySet());
+        Collections.reverse(analyzed);
+        for (Map.Entry<String, List<ModifiedMethod>> entry : analyzed)
+            store.addCommit(entry.getKey(), entry.getValue());
+
+        store.save(head.getName());
+    }
+
+    /**
+     * Analyzes the given commits with the given number of workers
+     *
+     * @return the modified methods of every commit, empty lists included, in the order of the given commits
+     */
+    Map<String, List<ModifiedMethod>> analyzeCommits(List<RevCommit> commits, int workers) throws IOException {
+        return analyzeCommits(commits, workers, false);
+    }
+
+    /**
+     * Analyzes the given commits with the given number of workers, optionally tracking moves: copied files are
+     * then reported as added, and the unchanged methods of renamed files as {@link ModificationType#RENAMED}
+     *
+     * @return the modified methods of every commit, empty lists included, in the order of the given commits
+     */
+    Map<String, List<ModifiedMethod>> analyzeCommits(List<RevCommit> commits, int workers, boolean trackMoves) throws IOException {
+        long start = ANALYZE_TIMER.start();
+        Map<String, List<ModifiedMethod>> analyzed = new ConcurrentHashMap<>();
+        if (workers <= 1) {
+            try (CommitAnalyzer analyzer = new CommitAnalyzer(trackMoves)) {
+                for (RevCommit commit : commits)
+                    analyzed.put(commit.getName(), analyzer.getModifiedJavaMethods(commit));
+            }
+        } else {
+            analyzeConcurrently(commits, workers, trackMoves, analyzed);
+        }
+
+        ANALYZE_TIMER.stop(start);
+        log.info("Analyzed {} commits, blob cache hit rate: {}", commits.size(), String.format("%.2f", blobCache.getHitRate()));
+
+        // Restore the given order
+        Map<String, List<ModifiedMethod>> ordered = new LinkedHashMap<>();
+        for (RevCommit commit : commits) {
+            ordered.put(commit.getName(), analyzed.get(commit.getName()));
+        }
+        return ordered;
+    }
+
+    /**
+     * Runs the given number of workers, each pulling the next commit to analyze from a shared cursor
+     */
+    private void analyzeConcurrently(List<RevCommit> commits, int workers, boolean trackMoves, Map<String, List<ModifiedMethod>> analyzed) throws IOException {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    try (CommitAnalyzer analyzer = new CommitAnalyzer(trackMoves)) {
+                        int i;
+                        while ((i = next.getAndIncrement()) < commits.size()) {
+                            RevCommit commit = commits.get(i);
+                            analyzed.put(commit.getName(), analyzer.getModifiedJavaMethods(commit));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<Void> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            log.error("Error analyzing commits: {}", e.getCause().getMessage(), e.getCause());
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing commits", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Type of modification to a method
      */
     public enum ModificationType {
-        ADDED, MODIFIED, DELETED
+        ADDED, MODIFIED, DELETED,
+        // Unchanged, but its file was renamed; only reported when tracking moves
+        RENAMED
     }
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+package vcs.commit;
+
+import issues.model.Release;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import vcs.commit.BlobCache.Blob;
+import vcs.model.MethodMetrics;
+import vcs.model.MethodSpan;
+import vcs.model.ModifiedMethod;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Builds the method-level dataset of a project, release by release, in a single walk of the history from the
+ * oldest commit. The changes of each commit are folded into running per-method accumulators; when the walk
+ * passes the date of a release, the methods in the tree of the last commit before it are emitted with the
+ * accumulated metrics. Methods follow their files across renames; copies start a history of their own.
+ * <p>
+ * The walk follows the first parent from HEAD, i.e. the mainline releases are cut from, so each release is the
+ * tree of a mainline commit and never of a side branch not merged yet. A merge commit counts the changes it
+ * brings in from its branch, diffed against its first parent, as a single revision by the merge author. Fix
+ * counts rely on the commit-ticket links of {@link GitCommitManager#getCommitsWithTickets()}, and are zero if it
+ * wasn't called
+ */
+@Slf4j
+public class ReleaseDatasetBuilder {
+
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final GitCommitManager commitManager;
+
+    // Commits analyzed at a time, bounding the changes held in memory
+    @Getter
+    @Setter
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public ReleaseDatasetBuilder(GitCommitManager commitManager) {
+        this.commitManager = commitManager;
+    }
+
+    /**
+     * Builds the dataset for the given releases
+     *
+     * @param releases the releases, e.g. the ones retrieved by {@code JiraReleasesManager.getReleasesInfo(percentage)}
+     * @return the metrics of every method of every release, in release order
+     * @throws IOException if there's an error accessing the Git repository
+     */
+    public List<MethodMetrics> build(List<Release> releases) throws IOException {
+        List<MethodMetrics> rows = new ArrayList<>();
+        build(releases, rows::add);
+        return rows;
+    }
+
+    /**
+     * Builds the dataset for the given releases, handing each row to the consumer as soon as it's computed.
+     * Releases older than the first commit are skipped; releases newer than the last commit get its tree
+     *
+     * @param releases the releases, in any order
+     * @param consumer the consumer of the rows, receiving them in release order
+     * @throws IOException if there's an error accessing the Git repository
+     */
+    public void build(List<Release> releases, Consumer<MethodMetrics> consumer) throws IOException {
+        List<Release> sortedReleases = new ArrayList<>(releases);
+        sortedReleases.sort(Comparator.comparing(Release::getReleaseDate));
+
+        Repository repository = commitManager.getRepository();
+        List<RevCommit> commits = getCommitsOldestFirst(repository);
+        Map<String, MethodHistory> histories = new HashMap<>();
+
+        int nextRelease = 0;
+        RevCommit lastCommit = null;
+        try (ObjectReader reader = repository.newObjectReader()) {
+            for (int from = 0; from < commits.size(); from += batchSize) {
+                List<RevCommit> batch = commits.subList(from, Math.min(commits.size(), from + batchSize));
+                Map<String, List<ModifiedMethod>> analyzed = commitManager.analyzeCommits(batch, commitManager.getAnalysisWorkers(), true);
+
+                for (RevCommit commit : batch) {
+                    LocalDate commitDate = dateOf(commit);
+                    while (nextRelease < sortedReleases.size() && commitDate.isAfter(sortedReleases.get(nextRelease).getReleaseDate())) {
+                        emitRelease(sortedReleases.get(nextRelease), nextRelease + 1, lastCommit, histories, reader, consumer);
+                        nextRelease++;
+                    }
+
+                    List<ModifiedMethod> changes = analyzed.get(commit.getName());
+                    if (changes != null) applyChanges(commit, commitDate, changes, histories);
+                    lastCommit = commit;
+                }
+            }
+
+            for (; nextRelease < sortedReleases.size(); nextRelease++)
+                emitRelease(sortedReleases.get(nextRelease), nextRelease + 1, lastCommit, histories, reader, consumer);
+        }
+    }
+
+    /**
+     * Lists the commits of the mainline, following the first parent from HEAD, oldest first
+     */
+    private static List<RevCommit> getCommitsOldestFirst(Repository repository) throws IOException {
+        List<RevCommit> commits = new ArrayList<>();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) return commits;
+
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            revWalk.setFirstParent(true);
+            revWalk.sort(RevSort.TOPO);
+            revWalk.sort(RevSort.COMMIT_TIME_DESC, true);
+            revWalk.sort(RevSort.REVERSE, true);
+            revWalk.markStart(revWalk.parseCommit(head));
+            revWalk.forEach(commits::add);
+        }
+        return commits;
+    }
+
+    /**
+     * Folds the changes of a commit into the accumulators of the methods
+     */
+    private void applyChanges(RevCommit commit, LocalDate commitDate, List<ModifiedMethod> changes, Map<String, MethodHistory> histories) {
+        String author = commit.getAuthorIdent().getEmailAddress().toLowerCase(Locale.ROOT);
+        boolean isFix = !commitManager.getTicketsForCommit(commit.getName()).isEmpty();
+
+        for (ModifiedMethod change : changes) {
+            String key = keyOf(change.getFilePath(), change.getSignature());
+            MethodHistory history;
+            switch (change.getModificationType()) {
+                case DELETED:
+                    histories.remove(key);
+                    continue;
+                case RENAMED:
+                    history = histories.remove(keyOf(change.getOldFilePath(), change.getSignature()));
+                    if (history != null) histories.put(key, history);
+                    continue;
+                case MODIFIED:
+                    history = histories.remove(keyOf(change.getOldFilePath(), change.getSignature()));
+                    if (history == null) history = new MethodHistory(commitDate);
+                    histories.put(key, history);
+                    break;
+                default:
+                    history = histories.computeIfAbsent(key, k -> new MethodHistory(commitDate));
+            }
+            history.record(author, change.getAddedLines(), change.getDeletedLines(), isFix);
+        }
+    }
+
+    /**
+     * Emits a row for every method in the tree of the given commit
+     */
+    private void emitRelease(Release release, int releaseNumber, RevCommit commit, Map<String, MethodHistory> histories,
+                             ObjectReader reader, Consumer<MethodMetrics> consumer) throws IOException {
+        if (commit == null) {
+            log.warn("Release {} precedes the first commit, skipping it", release.getName());
+            return;
+        }
+
+        int methods = 0;
+        BlobCache blobCache = commitManager.getBlobCache();
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathSuffixFilter.create(".java"));
+
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                Blob blob = blobCache.get(treeWalk.getObjectId(0), reader);
+                for (MethodSpan span : blob.getMethods()) {
+                    MethodHistory history = histories.get(keyOf(path, span.getSignature()));
+                    consumer.accept(history == null
+                            ? new MethodMetrics(release.getName(), releaseNumber, path, span.getSignature(),
+                                    GitCommitManager.lineCount(span), 0, 0, 0, 0, 0, 0, 0)
+                            : new MethodMetrics(release.getName(), releaseNumber, path, span.getSignature(),
+                                    GitCommitManager.lineCount(span), history.revisions, history.addedLines,
+                                    history.deletedLines, history.maxChurn, history.authors.size(),
+                                    ChronoUnit.DAYS.between(history.introduced, release.getReleaseDate()), history.fixes));
+                    methods++;
+                }
+            }
+        }
+        log.info("Release {} ({}): {} methods at commit {}", release.getName(), release.getReleaseDate(), methods, commit.getName());
+    }
+
+    private static String keyOf(String path, String signature) {
+        return path + '#' + signature;
+    }
+
+    private static LocalDate dateOf(RevCommit commit) {
+        return LocalDate.ofInstant(Instant.ofEpochSecond(commit.getCommitTime()), ZoneId.systemDefault());
+    }
+
+    /**
+     * The running metrics of a method
+     */
+    private static class MethodHistory {
+
+        private final LocalDate introduced;
+        private final Set<String> authors = new HashSet<>(4);
+        private int revisions;
+        private int addedLines;
+        private int deletedLines;
+        private int maxChurn;
+        private int fixes;
+
+        MethodHistory(LocalDate introduced) {
+            this.introduced = introduced;
+        }
+
+        void record(String author, int added, int deleted, boolean isFix) {
+            authors.add(author);
+            revisions++;
+            addedLines += added;
+            deletedLines += deleted;
+            maxChurn = Math.max(maxChurn, added + deleted);
+            if (isFix) fixes++;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package vcs.history;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import vcs.commit.GitCommitManager.ModificationType;
+import vcs.model.MethodChange;
+import vcs.model.ModifiedMethod;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A local, binary index of the method changes of every analyzed commit, so that the history only has to be
+ * walked for the commits made since the last indexed HEAD. Method bodies are not stored: a method is identified
+ * by its file path and signature.
+ * <p>
+ * File layout: magic, version, last indexed HEAD, a dictionary of the distinct paths and signatures, then for
+ * each commit its raw id followed by its changes as (path index, signature index, modification type)
+ */
+@Slf4j
+public class MethodHistoryStore {
+
+    private static final int MAGIC = 0x4D485331; // "MHS1"
+    // Bumped whenever the stored signatures or modification types change meaning, so older indexes are rebuilt.
+    // 2: signatures qualified by their nested types, and the RENAMED type
+    private static final int VERSION = 2;
+
+    private final Path file;
+
+    // Commit id -> changes, in indexing order
+    private final Map<String, List<MethodChange>> changesByCommit = new LinkedHashMap<>();
+    // "path#signature" -> changes, in indexing order
+    private final Map<String, List<MethodChange>> changesByMethod = new HashMap<>();
+
+    /**
+     * The HEAD commit the index was last brought up to date with, or null for an empty index
+     */
+    @Getter
+    private String lastHead;
+
+    private MethodHistoryStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the store in the given file, starting from an empty index if it doesn't exist, can't be read or was
+     * written by another version
+     *
+     * @param file the store file
+     * @return the store
+     */
+    public static MethodHistoryStore open(Path file) {
+        MethodHistoryStore store = new MethodHistoryStore(file);
+        if (!Files.exists(file)) return store;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            store.read(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable method history {}: {}", file, e.getMessage());
+            store.clear();
+        }
+        return store;
+    }
+
+    /**
+     * Checks whether a commit has already been indexed
+     */
+    public boolean contains(String commitId) {
+        return changesByCommit.containsKey(commitId);
+    }
+
+    /**
+     * @return the number of indexed commits
+     */
+    public int size() {
+        return changesByCommit.size();
+    }
+
+    /**
+     * Indexes the method changes of a commit, replacing any previous entry for it
+     *
+     * @param commitId        the commit id
+     * @param modifiedMethods the methods modified in the commit
+     */
+    public void addCommit(String commitId, List<ModifiedMethod> modifiedMethods) {
+        List<MethodChange> changes = new ArrayList<>(modifiedMethods.size());
+        for (ModifiedMethod method : modifiedMethods)
+            changes.add(new MethodChange(commitId, method.getFilePath(), method.getSignature(), method.getModificationType()));
+        putCommit(commitId, changes);
+    }
+
+    /**
+     * Returns all the method changes made in a commit
+     *
+     * @param commitId the commit id
+     * @return the changes, or an empty list if the commit changed no method or isn't indexed
+     */
+    public List<MethodChange> getChangesInCommit(String commitId) {
+        return Collections.unmodifiableList(changesByCommit.getOrDefault(commitId, List.of()));
+    }
+
+    /**
+     * Returns all the changes made to a method
+     *
+     * @param filePath  the path of the file declaring the method
+     * @param signature the method signature, e.g. "put(String,int)"
+     * @return the changes, in indexing order
+     */
+    public List<MethodChange> getChangesToMethod(String filePath, String signature) {
+        return Collections.unmodifiableList(changesByMethod.getOrDefault(methodKey(filePath, signature), List.of()));
+    }
+
+    /**
+     * Removes every indexed commit, e.g. when the history has been rewritten
+     */
+    public void clear() {
+        changesByCommit.clear();
+        changesByMethod.clear();
+        lastHead = null;
+    }
+
+    /**
+     * Records the HEAD the index is now up to date with and writes the store to disk
+     *
+     * @param head the current HEAD commit id
+     * @throws IOException in case of errors while writing the file
+     */
+    public void save(String head) throws IOException {
+        lastHead = head;
+
+        // Build the dictionary of paths and signatures
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (List<MethodChange> changes : changesByCommit.values()) {
+            for (MethodChange change : changes) {
+                dictionary.putIfAbsent(change.getFilePath(), dictionary.size());
+                dictionary.putIfAbsent(change.getSignature(), dictionary.size());
+            }
+        }
+
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(lastHead == null ? "" : lastHead);
+
+            out.writeInt(dictionary.size());
+            for (String entry : dictionary.keySet()) out.writeUTF(entry);
+
+            byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+            out.writeInt(changesByCommit.size());
+            for (Map.Entry<String, List<MethodChange>> commit : changesByCommit.entrySet()) {
+                ObjectId.fromString(commit.getKey()).copyRawTo(rawId, 0);
+                out.write(rawId);
+                out.writeInt(commit.getValue().size());
+                for (MethodChange change : commit.getValue()) {
+                    out.writeInt(dictionary.get(change.getFilePath()));
+                    out.writeInt(dictionary.get(change.getSignature()));
+                    out.writeByte(change.getModificationType().ordinal());
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Unsupported file format");
+        String head = in.readUTF();
+
+        String[] dictionary = new String[in.readInt()];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = in.readUTF();
+
+        ModificationType[] types = ModificationType.values();
+        byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+        int commits = in.readInt();
+        for (int c = 0; c < commits; c++) {
+            in.readFully(rawId);
+            String commitId = ObjectId.fromRaw(rawId).getName();
+            int count = in.readInt();
+            List<MethodChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                changes.add(new MethodChange(commitId, dictionary[in.readInt()], dictionary[in.readInt()], types[in.readByte()]));
+            putCommit(commitId, changes);
+        }
+        lastHead = head.isEmpty() ? null : head;
+    }
+
+    private void putCommit(String commitId, List<MethodChange> changes) {
+        List<MethodChange> previous = changesByCommit.put(commitId, changes);
+        if (previous != null) {
+            for (MethodChange change : previous)
+                changesByMethod.get(methodKey(change.getFilePath(), change.getSignature())).remove(change);
+        }
+        for (MethodChange change : changes)
+            changesByMethod.computeIfAbsent(methodKey(change.getFilePath(), change.getSignature()), k -> new ArrayList<>()).add(change);
+    }
+
+    private static String methodKey(String filePath, String signature) {
+        return filePath + '#' + signature;
+    }
+}
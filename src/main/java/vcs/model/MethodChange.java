@@ -0,0 +1,22 @@
+package vcs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import vcs.commit.GitCommitManager;
+
+/**
+ * A change to a method in a commit, without the method body
+ */
+@Getter
+@AllArgsConstructor
+public class MethodChange {
+    private final String commitId;
+    private final String filePath;
+    private final String signature;
+    private final GitCommitManager.ModificationType modificationType;
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s in %s (%s)", modificationType, signature, filePath, commitId);
+    }
+}
@@ -0,0 +1,39 @@
+package vcs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The metrics of a method as of a release. The history metrics cover all the commits up to the release
+ */
+@Getter
+@AllArgsConstructor
+public class MethodMetrics {
+    private final String release;
+    // 1-based position of the release in date order
+    private final int releaseNumber;
+    private final String filePath;
+    private final String signature;
+
+    // Lines of the declaration in the release
+    private final int loc;
+    // Commits that changed the method, added and deleted lines, and the largest churn of a single commit
+    private final int revisions;
+    private final int addedLines;
+    private final int deletedLines;
+    private final int maxChurn;
+    private final int authors;
+    // Days from the commit introducing the method to the release
+    private final long ageDays;
+    // Commits that changed the method and are linked to a fixed bug
+    private final int fixes;
+
+    public int getChurn() {
+        return addedLines + deletedLines;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s in %s: loc %d, revisions %d, churn %d", release, signature, filePath, loc, revisions, getChurn());
+    }
+}
@@ -0,0 +1,44 @@
+package vcs.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The location of a method (or constructor) declaration inside a Java source file, as offsets into the source
+ */
+@Getter
+@AllArgsConstructor
+public class MethodSpan {
+    private final String name;
+
+    /**
+     * The method name followed by its parameter types, qualified by the nested types declaring it, e.g.
+     * "put(Map<String,Integer>,int...)" or "Entry.compareTo(Entry<? extends K,V>)"
+     */
+    private final String signature;
+
+    // Offset of the first token of the declaration (annotations and modifiers included)
+    private final int start;
+    // Offset of the opening brace of the body
+    private final int bodyStart;
+    // Offset right after the closing brace of the body
+    private final int end;
+
+    // 1-based lines of the first and last character of the declaration
+    private final int startLine;
+    private final int endLine;
+
+    /**
+     * Returns the text of the declaration in the source the span was located in
+     */
+    public String textOf(String source) {
+        return source.substring(start, end);
+    }
+
+    /**
+     * Checks whether the declaration overlaps the given 1-based, inclusive line range
+     */
+    public boolean overlapsLines(int firstLine, int lastLine) {
+        return startLine <= lastLine && firstLine <= endLine;
+    }
+}
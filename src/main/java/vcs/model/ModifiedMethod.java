@@ -4,29 +4,34 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import vcs.commit.GitCommitManager;
 
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 @Getter
 @AllArgsConstructor
 public class ModifiedMethod {
     private final String filePath;
+    /**
+     * The method name followed by its parameter types, identifying the method within its file
+     */
+    private final String signature;
     private final String methodCode;
     private final GitCommitManager.ModificationType modificationType;
+    // The path of the file before the commit, different from filePath when the file was renamed
+    private final String oldFilePath;
+    // Lines of the method added and deleted by the commit
+    private final int addedLines;
+    private final int deletedLines;
+
+    public ModifiedMethod(String filePath, String signature, String methodCode, GitCommitManager.ModificationType modificationType) {
+        this(filePath, signature, methodCode, modificationType, filePath, 0, 0);
+    }
 
     public String getMethodName() {
-        // Extract method name from the method code
-        Pattern pattern = Pattern.compile("\\s+(\\w+)\\s*\\(");
-        Matcher matcher = pattern.matcher(methodCode);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return "unknown";
+        // The signature starts with the method name, possibly qualified by nested types
+        int paren = signature.indexOf('(');
+        return paren > 0 ? signature.substring(signature.lastIndexOf('.', paren) + 1, paren) : "unknown";
     }
 
     @Override
     public String toString() {
         return String.format("%s: %s in %s", modificationType, getMethodName(), filePath);
     }
-}
\ No newline at end of file
+}
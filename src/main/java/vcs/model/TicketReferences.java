@@ -0,0 +1,99 @@
+package vcs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ticket numbers referenced by a commit message, grouped by project key. References without a project key
+ * ("ISSUE 123", "#123") are kept apart, since they can't be linked to a ticket unambiguously
+ */
+public class TicketReferences {
+
+    private final List<String> projectKeys;
+    private final int[][] numbers;
+    private final int[] counts;
+    private int[] unqualified = new int[0];
+    private int unqualifiedCount;
+
+    public TicketReferences(List<String> projectKeys) {
+        this.projectKeys = projectKeys;
+        this.numbers = new int[projectKeys.size()][];
+        this.counts = new int[projectKeys.size()];
+    }
+
+    /**
+     * Adds a number for the project key at the given index, ignoring duplicates
+     */
+    public void add(int keyIndex, int number) {
+        if (numbers[keyIndex] == null) numbers[keyIndex] = new int[4];
+        else if (contains(numbers[keyIndex], counts[keyIndex], number)) return;
+        numbers[keyIndex] = append(numbers[keyIndex], counts[keyIndex]++, number);
+    }
+
+    /**
+     * Adds a number referenced without a project key, ignoring duplicates
+     */
+    public void addUnqualified(int number) {
+        if (contains(unqualified, unqualifiedCount, number)) return;
+        unqualified = append(unqualified, unqualifiedCount++, number);
+    }
+
+    /**
+     * @param projectKey the project key, in any case
+     * @return the numbers referenced for the project key, in order of appearance
+     */
+    public int[] getNumbers(String projectKey) {
+        int index = -1;
+        for (int k = 0; k < projectKeys.size() && index < 0; k++)
+            if (projectKeys.get(k).equalsIgnoreCase(projectKey)) index = k;
+        return index < 0 || numbers[index] == null ? new int[0] : Arrays.copyOf(numbers[index], counts[index]);
+    }
+
+    /**
+     * @return the numbers referenced without a project key, in order of appearance
+     */
+    public int[] getUnqualifiedNumbers() {
+        return Arrays.copyOf(unqualified, unqualifiedCount);
+    }
+
+    /**
+     * @return true if the message references no ticket at all
+     */
+    public boolean isEmpty() {
+        if (unqualifiedCount > 0) return false;
+        for (int count : counts) if (count > 0) return false;
+        return true;
+    }
+
+    /**
+     * @return the qualified references as ticket keys, e.g. "BOOKKEEPER-123"
+     */
+    public List<String> getTicketKeys() {
+        List<String> keys = new ArrayList<>();
+        for (int k = 0; k < counts.length; k++)
+            for (int i = 0; i < counts[k]; i++) keys.add(projectKeys.get(k) + "-" + numbers[k][i]);
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        List<String> all = getTicketKeys();
+        for (int i = 0; i < unqualifiedCount; i++) all.add("#" + unqualified[i]);
+        return all.toString();
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) if (values[i] == value) return true;
+        return false;
+    }
+
+    /**
+     * Writes the value at the given position, growing the array if needed
+     */
+    private static int[] append(int[] values, int count, int value) {
+        if (count == values.length) values = Arrays.copyOf(values, Math.max(4, count * 2));
+        values[count] = value;
+        return values;
+    }
+}
@@ -0,0 +1,518 @@
+package vcs.parser;
+
+import vcs.model.MethodSpan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Locates the method and constructor declarations of a Java source file in a single pass.
+ * <p>
+ * The source is split into tokens, skipping comments, string and char literals and text blocks, so braces inside
+ * them are never counted. Every brace opens a scope classified as a type body (classes, interfaces, enums, records,
+ * enum constant bodies and anonymous classes), a method body or any other block; a method is a brace opened
+ * directly in a type body after a parameter list, or a compact record constructor. Methods of nested, local and
+ * anonymous classes are located too, and their spans are contained in the span of the enclosing method.
+ * <p>
+ * Signatures are qualified by the types enclosing the method, except the first top-level type, so that methods of
+ * different nested types never share a signature: "run()" in the top-level type, "Inner.run()" in a nested class,
+ * "$1.run()" in the first anonymous class of the top-level type and "RED.run()" in the body of an enum constant.
+ * <p>
+ * This is not a full parser: it only relies on the shape of declarations and tolerates code that does not compile
+ */
+public class JavaMethodLocator {
+
+    private static final int IDENT = 0;
+    private static final int PUNCT = 1;
+    private static final int LITERAL = 2;
+
+    private static final int BLOCK = 0;
+    private static final int TYPE_BODY = 1;
+    private static final int METHOD_BODY = 2;
+    // A brace inside unbalanced parentheses (lambda bodies and array initializers passed as arguments)
+    private static final int INLINE = 3;
+
+    private static final Set<String> STATEMENT_KEYWORDS = Set.of("if", "for", "while", "switch", "catch", "synchronized", "try", "return", "new", "throw");
+
+    private final String src;
+    private final int length;
+
+    // Tokens of the declaration or statement being read
+    private int[] tokStart = new int[64];
+    private int[] tokEnd = new int[64];
+    private int[] tokKind = new int[64];
+    private int tokens;
+
+    // Open scopes; depth 0 is the compilation unit
+    private int[] scopeKind = new int[16];
+    // Index of the first token of the current statement in each scope, and of the first token
+    // visible to the scope (inline scopes also see the expression they are nested in)
+    private int[] scopeBase = new int[16];
+    private int[] scopeVisible = new int[16];
+    private boolean[] enumConstants = new boolean[16];
+    private String[] pendingName = new String[16];
+    private String[] pendingSignature = new String[16];
+    private int[] pendingStart = new int[16];
+    private int[] pendingBodyStart = new int[16];
+    // Qualifier of the methods declared in each scope, the canonical constructor signature of record bodies
+    // and the number of anonymous classes met so far in type bodies
+    private String[] qualifier = new String[16];
+    private String[] recordSignature = new String[16];
+    private int[] anonymousClasses = new int[16];
+    private int depth;
+    private int topLevelTypes;
+
+    private final int[] lineStarts;
+    private final int lines;
+    private final List<MethodSpan> methods = new ArrayList<>();
+
+    private JavaMethodLocator(String src) {
+        this.src = src;
+        this.length = src.length();
+
+        int[] starts = new int[Math.max(16, length / 32)];
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (src.charAt(i) == '\n') {
+                if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = i + 1;
+            }
+        }
+        this.lineStarts = starts;
+        this.lines = count;
+        this.qualifier[0] = "";
+    }
+
+    /**
+     * Locates all the method and constructor declarations that have a body
+     *
+     * @param javaContent the content of a Java source file
+     * @return the spans of the declarations, ordered by their position in the source
+     */
+    public static List<MethodSpan> locate(String javaContent) {
+        JavaMethodLocator locator = new JavaMethodLocator(javaContent);
+        locator.scan();
+        locator.methods.sort(Comparator.comparingInt(MethodSpan::getStart));
+        return locator.methods;
+    }
+
+    private void scan() {
+        int pos = 0;
+        while (pos < length) {
+            char c = src.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && pos + 1 < length && src.charAt(pos + 1) == '/') {
+                pos = skipLineComment(pos);
+            } else if (c == '/' && pos + 1 < length && src.charAt(pos + 1) == '*') {
+                pos = skipBlockComment(pos);
+            } else if (c == '"' || c == '\'') {
+                int end = skipQuoted(pos, c);
+                addToken(LITERAL, pos, end);
+                pos = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = pos + 1;
+                while (end < length && Character.isJavaIdentifierPart(src.charAt(end))) end++;
+                addToken(IDENT, pos, end);
+                pos = end;
+            } else if (c >= '0' && c <= '9') {
+                int end = pos + 1;
+                while (end < length && (Character.isLetterOrDigit(src.charAt(end)) || src.charAt(end) == '_' || src.charAt(end) == '.')) end++;
+                addToken(LITERAL, pos, end);
+                pos = end;
+            } else {
+                if (c == '{') openBrace(pos);
+                else if (c == '}') closeBrace(pos);
+                else if (c == ';') endStatement();
+                else addToken(PUNCT, pos, pos + 1);
+                pos++;
+            }
+        }
+    }
+
+    private int skipLineComment(int pos) {
+        int end = src.indexOf('\n', pos);
+        return end < 0 ? length : end + 1;
+    }
+
+    private int skipBlockComment(int pos) {
+        int end = src.indexOf("*/", pos + 2);
+        return end < 0 ? length : end + 2;
+    }
+
+    /**
+     * Skips a string literal, a text block or a char literal, returning the offset after the closing quote
+     */
+    private int skipQuoted(int pos, char quote) {
+        if (quote == '"' && src.startsWith("\"\"\"", pos)) {
+            int i = pos + 3;
+            while (i < length) {
+                char c = src.charAt(i);
+                if (c == '\\') i += 2;
+                else if (src.startsWith("\"\"\"", i)) return i + 3;
+                else i++;
+            }
+            return length;
+        }
+
+        int i = pos + 1;
+        while (i < length) {
+            char c = src.charAt(i);
+            if (c == '\\') i += 2;
+            else if (c == quote) return i + 1;
+            // Unterminated literal: stop at the end of the line
+            else if (c == '\n') return i;
+            else i++;
+        }
+        return length;
+    }
+
+    private void addToken(int kind, int start, int end) {
+        if (tokens == tokStart.length) {
+            tokStart = Arrays.copyOf(tokStart, tokens * 2);
+            tokEnd = Arrays.copyOf(tokEnd, tokens * 2);
+            tokKind = Arrays.copyOf(tokKind, tokens * 2);
+        }
+        tokStart[tokens] = start;
+        tokEnd[tokens] = end;
+        tokKind[tokens] = kind;
+        tokens++;
+    }
+
+    private void endStatement() {
+        tokens = scopeBase[depth];
+        if (scopeKind[depth] == TYPE_BODY) enumConstants[depth] = false;
+    }
+
+    private void openBrace(int pos) {
+        int parent = scopeKind[depth];
+        int kind;
+        boolean isEnum = false;
+        int open = -1;
+
+        String typeName = null;
+        String record = null;
+        boolean compactConstructor = false;
+        int typeKeyword = typeDeclarationKeyword();
+        if (typeKeyword >= 0) {
+            kind = TYPE_BODY;
+            isEnum = tokenIs(typeKeyword, "enum");
+            typeName = typeKeyword + 1 < tokens ? tokenText(typeKeyword + 1) : "?";
+            if (tokenIs(typeKeyword, "record")) record = recordHeaderSignature(typeKeyword + 1);
+        } else if (parent == TYPE_BODY && enumConstants[depth]) {
+            // Body of an enum constant
+            kind = TYPE_BODY;
+            typeName = enumConstantName();
+        } else if (parent == TYPE_BODY && recordSignature[depth] != null && isCompactConstructor()) {
+            kind = METHOD_BODY;
+            compactConstructor = true;
+        } else if (parent == TYPE_BODY && (open = parameterListStart()) >= 0) {
+            kind = METHOD_BODY;
+        } else if (isAnonymousClassBody()) {
+            kind = TYPE_BODY;
+            typeName = "$" + (++anonymousClasses[enclosingType()]);
+        } else if (unclosedParentheses() > 0) {
+            kind = INLINE;
+        } else {
+            kind = BLOCK;
+        }
+
+        String enclosing = qualifier[depth];
+        push(kind);
+        enumConstants[depth] = isEnum;
+        recordSignature[depth] = record;
+        anonymousClasses[depth] = 0;
+        qualifier[depth] = typeName == null ? enclosing : qualify(enclosing, typeName);
+        if (kind == METHOD_BODY) {
+            String name = compactConstructor ? tokenText(tokens - 1) : tokenText(open - 1);
+            String signature = compactConstructor ? recordSignature[depth - 1] : signatureOf(name, open, matchingCloseParen(open));
+            pendingName[depth] = name;
+            pendingSignature[depth] = enclosing.isEmpty() ? signature : enclosing + "." + signature;
+            pendingStart[depth] = tokStart[scopeBase[depth - 1]];
+            pendingBodyStart[depth] = pos;
+        }
+
+        // Tokens before the brace are kept, so that an enclosing expression is still there once the brace is closed
+        scopeBase[depth] = tokens;
+        scopeVisible[depth] = kind == INLINE ? scopeVisible[depth - 1] : tokens;
+    }
+
+    private void closeBrace(int pos) {
+        if (depth == 0) {
+            // Unbalanced brace: ignore it
+            tokens = 0;
+            return;
+        }
+
+        int kind = scopeKind[depth];
+        if (kind == METHOD_BODY) {
+            methods.add(new MethodSpan(pendingName[depth], pendingSignature[depth], pendingStart[depth],
+                    pendingBodyStart[depth], pos + 1, lineOf(pendingStart[depth]), lineOf(pos)));
+        }
+
+        // A closed block also ends the statement it belongs to, unless it is inside an expression
+        int base = scopeBase[depth];
+        depth--;
+        tokens = kind == INLINE ? base : scopeBase[depth];
+    }
+
+    private void push(int kind) {
+        if (depth + 1 == scopeKind.length) {
+            int size = scopeKind.length * 2;
+            scopeKind = Arrays.copyOf(scopeKind, size);
+            scopeBase = Arrays.copyOf(scopeBase, size);
+            scopeVisible = Arrays.copyOf(scopeVisible, size);
+            enumConstants = Arrays.copyOf(enumConstants, size);
+            pendingName = Arrays.copyOf(pendingName, size);
+            pendingSignature = Arrays.copyOf(pendingSignature, size);
+            pendingStart = Arrays.copyOf(pendingStart, size);
+            pendingBodyStart = Arrays.copyOf(pendingBodyStart, size);
+            qualifier = Arrays.copyOf(qualifier, size);
+            recordSignature = Arrays.copyOf(recordSignature, size);
+            anonymousClasses = Arrays.copyOf(anonymousClasses, size);
+        }
+        depth++;
+        scopeKind[depth] = kind;
+    }
+
+    /**
+     * Returns the index of the class / interface / enum / record keyword of a type declaration, or -1
+     */
+    private int typeDeclarationKeyword() {
+        for (int i = scopeBase[depth]; i < tokens; i++) {
+            if (tokKind[i] != IDENT || (i > 0 && isPunct(i - 1, '.'))) continue;
+            if (tokenIs(i, "class") || tokenIs(i, "interface") || tokenIs(i, "enum")) return i;
+            // "record" is only a keyword when followed by the record name and its header
+            if (tokenIs(i, "record") && i + 2 < tokens && tokKind[i + 1] == IDENT && (isPunct(i + 2, '(') || isPunct(i + 2, '<')))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the qualifier of the methods of a type declared in the scope with the given qualifier. The first
+     * top-level type is left implicit
+     */
+    private String qualify(String enclosing, String typeName) {
+        if (depth == 1 && topLevelTypes++ == 0) return "";
+        return enclosing.isEmpty() ? typeName : enclosing + "." + typeName;
+    }
+
+    /**
+     * Returns the depth of the innermost type body, or 0 if the current scope is not inside a type
+     */
+    private int enclosingType() {
+        int d = depth;
+        while (d > 0 && scopeKind[d] != TYPE_BODY) d--;
+        return d;
+    }
+
+    /**
+     * Returns the name of the enum constant whose body is about to be opened, e.g. "RED" in "RED(255) {"
+     */
+    private String enumConstantName() {
+        int last = tokens - 1;
+        if (last >= scopeBase[depth] && isPunct(last, ')')) last = matchingOpenParen(last) - 1;
+        return last >= scopeBase[depth] && tokKind[last] == IDENT ? tokenText(last) : "?";
+    }
+
+    /**
+     * Returns the signature of the canonical constructor of a record from its header, e.g. "Point(int,int)"
+     * for "record Point(int x, int y)", or null if the header is malformed
+     *
+     * @param name the index of the name of the record
+     */
+    private String recordHeaderSignature(int name) {
+        int open = name + 1;
+        if (open < tokens && isPunct(open, '<')) {
+            int nesting = 0;
+            for (; open < tokens; open++) {
+                if (isPunct(open, '<')) nesting++;
+                else if (isPunct(open, '>') && --nesting == 0) break;
+            }
+            open++;
+        }
+        if (open >= tokens || !isPunct(open, '(')) return null;
+        return signatureOf(tokenText(name), open, matchingCloseParen(open));
+    }
+
+    /**
+     * Checks whether the current tokens are the header of a compact constructor of the record being declared,
+     * i.e. its name preceded only by annotations and modifiers
+     */
+    private boolean isCompactConstructor() {
+        int last = tokens - 1;
+        if (last < scopeBase[depth] || tokKind[last] != IDENT) return false;
+        String signature = recordSignature[depth];
+        String name = tokenText(last);
+        if (!signature.startsWith(name) || signature.charAt(name.length()) != '(') return false;
+        return last == scopeBase[depth] || tokKind[last - 1] == IDENT || isPunct(last - 1, ')');
+    }
+
+    /**
+     * Returns the index of the opening parenthesis of the parameter list if the current tokens are the header
+     * of a method or constructor, or -1
+     */
+    private int parameterListStart() {
+        int close = tokens - 1;
+        if (close < scopeBase[depth]) return -1;
+
+        if (!isPunct(close, ')')) {
+            // Skip the throws clause
+            int t = close;
+            while (t > scopeBase[depth] && !tokenIs(t, "throws")) t--;
+            if (!tokenIs(t, "throws") || t == scopeBase[depth] || !isPunct(t - 1, ')')) return -1;
+            close = t - 1;
+        }
+
+        int from = scopeBase[depth];
+        int open = matchingOpenParen(close);
+        if (open <= from) return -1;
+
+        int name = open - 1;
+        if (tokKind[name] != IDENT || STATEMENT_KEYWORDS.contains(tokenText(name))) return -1;
+        if (name > from && (isPunct(name - 1, '.') || isPunct(name - 1, '@'))) return -1;
+
+        // An '=' outside parentheses makes it a field initializer
+        int nesting = 0;
+        for (int i = from; i < name; i++) {
+            if (isPunct(i, '(')) nesting++;
+            else if (isPunct(i, ')')) nesting--;
+            else if (nesting == 0 && isPunct(i, '=')) return -1;
+        }
+        return open;
+    }
+
+    /**
+     * Checks whether the current tokens end with a class instance creation, e.g. "new Outer.Inner&lt;T&gt;(args)"
+     */
+    private boolean isAnonymousClassBody() {
+        int from = scopeVisible[depth];
+        int close = tokens - 1;
+        if (close < from || !isPunct(close, ')')) return false;
+        int i = matchingOpenParen(close) - 1;
+        if (i < from) return false;
+
+        if (isPunct(i, '>')) {
+            int nesting = 0;
+            for (; i >= from; i--) {
+                if (isPunct(i, '>')) nesting++;
+                else if (isPunct(i, '<') && --nesting == 0) break;
+            }
+            i--;
+        }
+        if (i < from || tokKind[i] != IDENT) return false;
+        while (i >= from + 2 && isPunct(i - 1, '.') && tokKind[i - 2] == IDENT) i -= 2;
+        return i > from && tokenIs(i - 1, "new");
+    }
+
+    private int unclosedParentheses() {
+        int nesting = 0;
+        for (int i = scopeVisible[depth]; i < tokens; i++) {
+            if (isPunct(i, '(')) nesting++;
+            else if (isPunct(i, ')')) nesting--;
+        }
+        return nesting;
+    }
+
+    private int matchingOpenParen(int close) {
+        int nesting = 0;
+        for (int i = close; i >= 0; i--) {
+            if (isPunct(i, ')')) nesting++;
+            else if (isPunct(i, '(') && --nesting == 0) return i;
+        }
+        return -1;
+    }
+
+    private int matchingCloseParen(int open) {
+        int nesting = 0;
+        for (int i = open; i < tokens; i++) {
+            if (isPunct(i, '(')) nesting++;
+            else if (isPunct(i, ')') && --nesting == 0) return i;
+        }
+        return tokens;
+    }
+
+    /**
+     * Builds the signature from the parameter types between the given parentheses, dropping annotations,
+     * modifiers and parameter names
+     */
+    private String signatureOf(String name, int open, int close) {
+        StringBuilder sb = new StringBuilder(name).append('(');
+        int paramStart = open + 1;
+        int nesting = 0;
+        boolean first = true;
+        for (int i = open + 1; i <= close; i++) {
+            boolean last = i == close;
+            if (!last) {
+                if (isPunct(i, '(') || isPunct(i, '<') || isPunct(i, '[')) nesting++;
+                else if (isPunct(i, ')') || isPunct(i, '>') || isPunct(i, ']')) nesting--;
+            }
+            if (last || (nesting == 0 && isPunct(i, ','))) {
+                if (i > paramStart) {
+                    if (!first) sb.append(',');
+                    appendParameterType(sb, paramStart, i);
+                    first = false;
+                }
+                paramStart = i + 1;
+            }
+        }
+        return sb.append(')').toString();
+    }
+
+    private void appendParameterType(StringBuilder sb, int from, int to) {
+        // Leading annotations and modifiers
+        while (from < to) {
+            if (isPunct(from, '@') && from + 1 < to) {
+                from += 2;
+                while (from + 1 < to && isPunct(from, '.')) from += 2;
+                if (from < to && isPunct(from, '(')) from = Math.min(matchingCloseParen(from), to - 1) + 1;
+            } else if (tokenIs(from, "final")) {
+                from++;
+            } else {
+                break;
+            }
+        }
+
+        // Trailing name, possibly followed by C-style array dimensions
+        int name = to - 1;
+        int dimensions = 0;
+        while (name - 1 > from && isPunct(name, ']') && isPunct(name - 1, '[')) {
+            dimensions++;
+            name -= 2;
+        }
+        if (name <= from || tokKind[name] != IDENT) {
+            name = to;
+            dimensions = 0;
+        }
+
+        for (int i = from; i < name; i++) {
+            // Words stay apart, e.g. in "? extends Number" or "@NonNull String"
+            if (i > from && tokKind[i] == IDENT && (tokKind[i - 1] == IDENT || isPunct(i - 1, '?') || isPunct(i - 1, ')')))
+                sb.append(' ');
+            sb.append(src, tokStart[i], tokEnd[i]);
+        }
+        for (int i = 0; i < dimensions; i++) sb.append("[]");
+    }
+
+    private boolean isPunct(int index, char c) {
+        return tokKind[index] == PUNCT && src.charAt(tokStart[index]) == c;
+    }
+
+    private boolean tokenIs(int index, String text) {
+        return tokKind[index] == IDENT && tokEnd[index] - tokStart[index] == text.length()
+                && src.startsWith(text, tokStart[index]);
+    }
+
+    private String tokenText(int index) {
+        return src.substring(tokStart[index], tokEnd[index]);
+    }
+
+    private int lineOf(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lines, offset);
+        return (index >= 0 ? index : -index - 2) + 1;
+    }
+}
@@ -0,0 +1,176 @@
+package vcs.parser;
+
+import vcs.model.TicketReferences;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Finds ticket references in commit messages in a single pass, case-insensitively and without copying the message.
+ * Recognizes "KEY-123" for any of the configured project keys, plus the unqualified "ISSUE 123" and "#123" forms.
+ * Keys and "ISSUE" must start a word, so that a key is never found inside a longer key or word (e.g. "KEEPER-1"
+ * inside "ZOOKEEPER-1").
+ * <p>
+ * The prefixes ("KEY-", "ISSUE", "#") are matched at once by an Aho-Corasick automaton compiled to a DFA over
+ * ASCII; the digits following a match are then parsed in place
+ */
+public class TicketIdScanner {
+
+    private static final int ALPHABET = 128;
+    // Ticket numbers with more digits don't fit an int and are ignored
+    private static final int MAX_DIGITS = 9;
+
+    private final List<String> projectKeys;
+    private final int issuePattern;
+    private final int hashPattern;
+    private int[] patternLength;
+
+    // DFA transitions, the pattern ending at each state (or -1) and the next state on the suffix chain with an output
+    private int[][] transitions;
+    private int[] output;
+    private int[] outputLink;
+
+    /**
+     * Compiles a scanner for the given project keys
+     *
+     * @param projectKeys the project keys, e.g. ["BOOKKEEPER", "ZOOKEEPER"], in any case
+     */
+    public TicketIdScanner(List<String> projectKeys) {
+        this.projectKeys = projectKeys.stream().map(key -> key.toUpperCase(Locale.ROOT)).toList();
+        this.issuePattern = projectKeys.size();
+        this.hashPattern = projectKeys.size() + 1;
+
+        List<String> patterns = new ArrayList<>();
+        for (String key : this.projectKeys) patterns.add(key + "-");
+        patterns.add("ISSUE");
+        patterns.add("#");
+        build(patterns);
+    }
+
+    /**
+     * @return the project keys the scanner recognizes, upper-cased
+     */
+    public List<String> getProjectKeys() {
+        return projectKeys;
+    }
+
+    /**
+     * Scans a commit message for ticket references
+     *
+     * @param message the commit message
+     * @return the referenced ticket numbers, deduplicated and in order of appearance
+     */
+    public TicketReferences scan(CharSequence message) {
+        TicketReferences references = new TicketReferences(projectKeys);
+        int length = message.length();
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0;
+                continue;
+            }
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            state = transitions[state][c];
+
+            for (int s = output[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s])
+                onMatch(message, output[s], i + 1, references);
+        }
+        return references;
+    }
+
+    /**
+     * Parses the number following a matched prefix ending right before the given offset
+     */
+    private void onMatch(CharSequence message, int pattern, int offset, TicketReferences references) {
+        int length = message.length();
+        if (pattern != hashPattern) {
+            int start = offset - patternLength[pattern];
+            if (start > 0 && Character.isLetterOrDigit(message.charAt(start - 1))) return;
+        }
+        if (pattern == issuePattern) {
+            // "ISSUE" must be followed by exactly one whitespace
+            if (offset >= length || !Character.isWhitespace(message.charAt(offset))) return;
+            offset++;
+        }
+
+        int number = 0;
+        int digits = 0;
+        while (offset < length && message.charAt(offset) >= '0' && message.charAt(offset) <= '9') {
+            number = number * 10 + (message.charAt(offset) - '0');
+            digits++;
+            offset++;
+            if (digits > MAX_DIGITS) return;
+        }
+        if (digits == 0) return;
+
+        if (pattern == issuePattern || pattern == hashPattern) references.addUnqualified(number);
+        else references.add(pattern, number);
+    }
+
+    private void build(List<String> patterns) {
+        // Trie
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        patternLength = new int[patterns.size()];
+        trie.add(newRow());
+        outputs.add(-1);
+        for (int p = 0; p < patterns.size(); p++) {
+            int state = 0;
+            for (char c : patterns.get(p).toCharArray()) {
+                if (c >= ALPHABET) throw new IllegalArgumentException("Project keys must be ASCII: " + patterns.get(p));
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newRow());
+                    outputs.add(-1);
+                }
+                state = trie.get(state)[c];
+            }
+            outputs.set(state, p);
+            patternLength[p] = patterns.get(p).length();
+        }
+
+        int states = trie.size();
+        transitions = trie.toArray(new int[0][]);
+        output = new int[states];
+        outputLink = new int[states];
+        int[] fail = new int[states];
+        for (int s = 0; s < states; s++) output[s] = outputs.get(s);
+        Arrays.fill(outputLink, -1);
+
+        // Breadth-first: failure links, output links and the missing transitions of the DFA
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (transitions[0][c] < 0) {
+                transitions[0][c] = 0;
+            } else {
+                fail[transitions[0][c]] = 0;
+                queue.add(transitions[0][c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int f = fail[state];
+            outputLink[state] = output[f] >= 0 ? f : outputLink[f];
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[f][c];
+                } else {
+                    fail[next] = transitions[f][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
@@ -0,0 +1,91 @@
+package vcs.synthetic;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A generated Java class: a package, a name and methods whose bodies are lines of arithmetic that the generator
+ * edits in place
+ */
+@Getter
+class SyntheticFile {
+
+    private static final int MAX_INITIAL_STATEMENTS = 12;
+
+    private String packageName;
+    private String className;
+    private final List<Method> methods = new ArrayList<>();
+    private int nextMethod;
+
+    SyntheticFile(String packageName, String className) {
+        this.packageName = packageName;
+        this.className = className;
+    }
+
+    String getFileName() {
+        return className + ".java";
+    }
+
+    void rename(String packageName, String className) {
+        this.packageName = packageName;
+        this.className = className;
+    }
+
+    void addMethod(Random random) {
+        Method method = new Method(nextMethod++);
+        int statements = 2 + random.nextInt(MAX_INITIAL_STATEMENTS);
+        for (int i = 0; i < statements; i++) method.statements.add(random.nextInt(1_000_000));
+        methods.add(method);
+    }
+
+    String render() {
+        StringBuilder source = new StringBuilder(256 + methods.size() * 400);
+        source.append("package org.synthetic.").append(packageName).append(";\n\n");
+        source.append("import java.util.List;\n\n");
+        source.append("/**\n * Generated class\n */\n");
+        source.append("public class ").append(className).append(" {\n\n");
+        source.append("    private int state;\n");
+        for (Method method : methods) method.render(source);
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * A method, as the seeds of its statements
+     */
+    static class Method {
+
+        private final int id;
+        private final List<Integer> statements = new ArrayList<>();
+
+        Method(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Changes one to three statements, sometimes adding or removing one
+         */
+        void edit(Random random) {
+            int changes = 1 + random.nextInt(3);
+            for (int i = 0; i < changes; i++) statements.set(random.nextInt(statements.size()), random.nextInt(1_000_000));
+            if (random.nextInt(4) == 0) statements.add(random.nextInt(statements.size() + 1), random.nextInt(1_000_000));
+            else if (random.nextInt(8) == 0 && statements.size() > 1) statements.remove(random.nextInt(statements.size()));
+        }
+
+        private void render(StringBuilder source) {
+            source.append("\n    public int method").append(id).append("(int input, List<Integer> values) {\n");
+            source.append("        int value = input + state;\n");
+            for (int seed : statements) {
+                switch (seed % 3) {
+                    case 0 -> source.append("        value = value * 31 + ").append(seed).append(";\n");
+                    case 1 -> source.append("        if (value > ").append(seed).append(") {\n            value -= values.size();\n        }\n");
+                    default -> source.append("        values.add(value ^ ").append(seed).append(");\n");
+                }
+            }
+            source.append("        return value;\n    }\n");
+        }
+    }
+}
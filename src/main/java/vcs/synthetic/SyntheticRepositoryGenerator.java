@@ -0,0 +1,330 @@
+package vcs.synthetic;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.TreeFormatter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+/**
+ * Generates Git repositories of Java files of any size, for scale testing the history walks. Each commit edits
+ * a few methods of a few files; files and methods are picked with a Zipf-like skew, so that some are much more
+ * churned than others, as in real projects. Files are added, renamed (class included) and deleted along the way,
+ * some commits come in branches merged with a merge commit, and most messages reference tickets.
+ * <p>
+ * Objects are written through the object inserter of the repository, with fast compression and without a working
+ * tree, then packed, so that generating the history takes about as long as walking it. The repository is
+ * reproducible from the seed
+ */
+@Slf4j
+@Getter
+@Setter
+public class SyntheticRepositoryGenerator {
+
+    private static final String SOURCE_ROOT = "src/main/java/org/synthetic";
+    private static final String[] ROOT_PATH = SOURCE_ROOT.split("/");
+    private static final int FILES_PER_PACKAGE = 50;
+
+    private int commits = 1000;
+    // Java files in the first commit; the count drifts with additions and deletions
+    private int files = 100;
+    private int methodsPerFile = 20;
+    // Average files edited by a commit, and methods edited per file
+    private double filesPerCommit = 3;
+    private double methodsPerFileEdit = 2;
+    // Zipf exponent of the choice of files and methods: 0 is uniform, higher concentrates the churn
+    private double churnSkew = 1.0;
+    // Per commit
+    private double addFileRate = 0.02;
+    private double renameRate = 0.01;
+    private double deleteFileRate = 0.005;
+    private double mergeRate = 0.03;
+    // Per edited file
+    private double addMethodRate = 0.1;
+    private double deleteMethodRate = 0.05;
+    private int authors = 20;
+    private List<String> ticketKeys = List.of("SYN");
+    // Tickets are numbered from 1 to this
+    private int tickets = 500;
+    // Share of commit messages referencing tickets
+    private double ticketRate = 0.7;
+    private Instant start = Instant.parse("2012-01-01T09:00:00Z");
+    private long seed = 42;
+
+    /**
+     * Generates a repository. Only the current branch is moved to the last commit, so HEAD resolves to it, but
+     * nothing is checked out: the index and the working tree stay empty, and the history must be read from the
+     * object database, as the commit managers do
+     *
+     * @param directory the directory of the repository, created if needed; it must not hold a repository yet
+     * @return the id of the last commit
+     * @throws IOException if the repository can't be written
+     */
+    public String generate(Path directory) throws IOException {
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            Repository repository = git.getRepository();
+            // Deflating dominates the generation: favour speed over size, the objects are packed at the end anyway
+            StoredConfig config = repository.getConfig();
+            config.setInt(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_COMPRESSION, Deflater.BEST_SPEED);
+            config.save();
+
+            ObjectId head;
+            Generation generation;
+            try (ObjectInserter inserter = repository.newObjectInserter()) {
+                generation = new Generation(inserter);
+                head = generation.run();
+            }
+
+            RefUpdate update = repository.updateRef(repository.getFullBranch());
+            update.setNewObjectId(head);
+            update.setForceUpdate(true);
+            update.update();
+
+            // One loose file per object is slow to walk: pack them
+            git.gc().call();
+            log.info("Generated {} commits and {} Java files in {}", generation.generated, generation.sources.size(), directory);
+            return head.getName();
+        } catch (GitAPIException e) {
+            throw new IOException("Unable to create repository in " + directory, e);
+        }
+    }
+
+    private static String packageOf(int classNumber) {
+        return String.format("p%04d", classNumber / FILES_PER_PACKAGE);
+    }
+
+    /**
+     * Generates a repository: directory [commits [files]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            log.error("Usage: SyntheticRepositoryGenerator <directory> [commits [files]]");
+            return;
+        }
+        SyntheticRepositoryGenerator generator = new SyntheticRepositoryGenerator();
+        if (args.length > 1) generator.setCommits(Integer.parseInt(args[1]));
+        if (args.length > 2) generator.setFiles(Integer.parseInt(args[2]));
+        log.info("HEAD is {}", generator.generate(Path.of(args[0])));
+    }
+
+    /**
+     * The state of one generation
+     */
+    private class Generation {
+
+        private final Random random = new Random(seed);
+        private final ObjectInserter inserter;
+        // Files in churn order: the first ones are the most edited
+        private final List<SyntheticFile> sources = new ArrayList<>();
+        // Package directory -> file name -> blob, and the trees of the packages not changed since last built
+        private final Map<String, TreeMap<String, ObjectId>> packages = new TreeMap<>();
+        private final Map<String, ObjectId> packageTrees = new HashMap<>();
+        private final Set<String> dirtyPackages = new HashSet<>();
+        private Instant time = start;
+        private int nextClass;
+        private int generated;
+
+        Generation(ObjectInserter inserter) {
+            this.inserter = inserter;
+        }
+
+        /**
+         * Writes all the commits
+         *
+         * @return the last commit
+         */
+        ObjectId run() throws IOException {
+            for (int i = 0; i < files; i++) addFile();
+            ObjectId head = commit(List.of(), "Initial import");
+
+            while (generated < commits) {
+                if (random.nextDouble() < mergeRate && commits - generated > 2) {
+                    head = branchAndMerge(head);
+                } else {
+                    mutate();
+                    head = commit(List.of(head), message());
+                }
+            }
+            inserter.flush();
+            return head;
+        }
+
+        /**
+         * Commits a few changes on a branch forked from the head, then merges the branch back with a merge commit
+         * whose first parent is the fork point, as a pull request merged without fast-forward
+         */
+        private ObjectId branchAndMerge(ObjectId head) throws IOException {
+            int branchCommits = Math.min(commits - generated - 1, 1 + random.nextInt(5));
+            String ticket = ticketKey();
+            ObjectId branch = head;
+            for (int i = 0; i < branchCommits; i++) {
+                mutate();
+                branch = commit(List.of(branch), ticket + " " + summary() + (i > 0 ? " (part " + (i + 1) + ")" : ""));
+            }
+            return commit(List.of(head, branch), "Merge pull request #" + (generated + 1) + " from contributor/" + ticket);
+        }
+
+        /**
+         * Applies the changes of one commit to the files
+         */
+        private void mutate() throws IOException {
+            if (random.nextDouble() < addFileRate) addFile();
+            if (random.nextDouble() < renameRate && !sources.isEmpty()) renameFile(sources.get(random.nextInt(sources.size())));
+            if (random.nextDouble() < deleteFileRate && sources.size() > 1) deleteFile(sources.get(random.nextInt(sources.size())));
+
+            int edited = Math.min(sources.size(), geometric(filesPerCommit));
+            // In the order picked: files hash by identity, and editing them in hash order would change every run
+            Set<SyntheticFile> touched = new LinkedHashSet<>();
+            while (touched.size() < edited) touched.add(sources.get(zipf(sources.size())));
+            for (SyntheticFile file : touched) editFile(file);
+        }
+
+        private void addFile() throws IOException {
+            SyntheticFile file = new SyntheticFile(packageOf(nextClass), "Class" + nextClass++);
+            int methods = Math.max(1, methodsPerFile / 2 + random.nextInt(methodsPerFile + 1));
+            for (int i = 0; i < methods; i++) file.addMethod(random);
+            // New files join anywhere in the churn order
+            sources.add(random.nextInt(sources.size() + 1), file);
+            store(file);
+        }
+
+        private void renameFile(SyntheticFile file) throws IOException {
+            unstore(file);
+            file.rename(random.nextBoolean() ? file.getPackageName() : packageOf(random.nextInt(nextClass)), "Class" + nextClass++);
+            store(file);
+        }
+
+        private void deleteFile(SyntheticFile file) {
+            unstore(file);
+            sources.remove(file);
+        }
+
+        private void editFile(SyntheticFile file) throws IOException {
+            if (random.nextDouble() < addMethodRate) file.addMethod(random);
+            if (random.nextDouble() < deleteMethodRate && file.getMethods().size() > 1)
+                file.getMethods().remove(random.nextInt(file.getMethods().size()));
+
+            int edited = Math.min(file.getMethods().size(), geometric(methodsPerFileEdit));
+            Set<Integer> methods = new HashSet<>();
+            while (methods.size() < edited) methods.add(zipf(file.getMethods().size()));
+            for (int method : methods) file.getMethods().get(method).edit(random);
+            store(file);
+        }
+
+        private void store(SyntheticFile file) throws IOException {
+            ObjectId blob = inserter.insert(Constants.OBJ_BLOB, file.render().getBytes(StandardCharsets.UTF_8));
+            packages.computeIfAbsent(file.getPackageName(), k -> new TreeMap<>()).put(file.getFileName(), blob);
+            dirtyPackages.add(file.getPackageName());
+        }
+
+        private void unstore(SyntheticFile file) {
+            TreeMap<String, ObjectId> entries = packages.get(file.getPackageName());
+            entries.remove(file.getFileName());
+            if (entries.isEmpty()) packages.remove(file.getPackageName());
+            dirtyPackages.add(file.getPackageName());
+        }
+
+        /**
+         * Writes the commit of the current files, rebuilding only the trees of the packages changed since the last one
+         */
+        private ObjectId commit(List<ObjectId> parents, String message) throws IOException {
+            for (String packageName : dirtyPackages) {
+                TreeMap<String, ObjectId> entries = packages.get(packageName);
+                if (entries == null) {
+                    packageTrees.remove(packageName);
+                    continue;
+                }
+                TreeFormatter tree = new TreeFormatter();
+                for (Map.Entry<String, ObjectId> entry : entries.entrySet()) tree.append(entry.getKey(), FileMode.REGULAR_FILE, entry.getValue());
+                packageTrees.put(packageName, inserter.insert(tree));
+            }
+            dirtyPackages.clear();
+
+            // Package names sort the same as their trees, all of them being directories of the same length
+            TreeFormatter root = new TreeFormatter();
+            for (String packageName : packages.keySet()) root.append(packageName, FileMode.TREE, packageTrees.get(packageName));
+            ObjectId tree = inserter.insert(root);
+            for (int i = ROOT_PATH.length - 1; i >= 0; i--) {
+                TreeFormatter parent = new TreeFormatter();
+                parent.append(ROOT_PATH[i], FileMode.TREE, tree);
+                tree = inserter.insert(parent);
+            }
+
+            // One to twelve hours between commits
+            time = time.plusSeconds(3600L + random.nextInt(11 * 3600));
+            int author = zipf(authors);
+            PersonIdent ident = new PersonIdent("Developer " + author, "developer" + author + "@example.org", time, ZoneOffset.UTC);
+
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(tree);
+            commit.setParentIds(parents);
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(message);
+            generated++;
+            return inserter.insert(commit);
+        }
+
+        private String message() {
+            if (random.nextDouble() >= ticketRate) return summary();
+            if (random.nextInt(20) == 0) return "Fix " + ticketKey() + " and " + ticketKey() + ": " + summary();
+            return ticketKey() + ": " + summary();
+        }
+
+        private String ticketKey() {
+            return ticketKeys.get(random.nextInt(ticketKeys.size())) + "-" + (1 + random.nextInt(tickets));
+        }
+
+        private String summary() {
+            String[] summaries = {"Fix ledger recovery after a restart", "Handle empty entries in the journal",
+                    "Avoid a race on close", "Improve error messages", "Refactor the read path", "Reduce allocations"};
+            return summaries[random.nextInt(summaries.length)];
+        }
+
+        /**
+         * Returns a count with the given mean, at least one, geometrically distributed
+         */
+        private int geometric(double mean) {
+            if (mean <= 1) return 1;
+            return 1 + (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - 1 / mean));
+        }
+
+        /**
+         * Returns a rank in [0, n), the lower ranks being chosen more often according to the churn skew
+         */
+        private int zipf(int n) {
+            double u = random.nextDouble();
+            double rank = churnSkew == 1.0
+                    ? Math.pow(n + 1, u)
+                    : Math.pow((Math.pow(n + 1, 1 - churnSkew) - 1) * u + 1, 1 / (1 - churnSkew));
+            return Math.min(n - 1, (int) rank - 1);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package issues.stub;
+
+import issues.JSONUtils;
+import issues.model.Release;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The Jira data of a project as served by {@link JiraStubServer}: its versions and its issues, in the JSON of the
+ * REST API. A fixture is either recorded from a real Jira instance or generated from a seed, and is stored as
+ * "versions.json" and "issues.json" in a directory named after the project
+ */
+@Slf4j
+public class JiraFixture {
+
+    private static final String VERSIONS_FILE = "versions.json";
+    private static final String ISSUES_FILE = "issues.json";
+
+    private static final String[] TYPES = {"Bug", "Improvement", "New Feature", "Task", "Sub-task"};
+    private static final String[] STATUSES = {"Closed", "Resolved", "Open", "Patch Available"};
+    private static final String[] RESOLUTIONS = {"Fixed", "Won't Fix", "Duplicate", "Not A Problem"};
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    @Getter
+    private final String project;
+    @Getter
+    private final JSONArray versions;
+    @Getter
+    private final List<JSONObject> issues;
+    // The issues serialized once, so that serving a page only copies bytes
+    private final List<byte[]> issueBytes;
+    private final byte[] versionBytes;
+
+    public JiraFixture(String project, JSONArray versions, List<JSONObject> issues) {
+        this.project = project.toUpperCase(Locale.ROOT);
+        this.versions = versions;
+        this.issues = List.copyOf(issues);
+        this.issueBytes = new ArrayList<>(issues.size());
+        for (JSONObject issue : issues) issueBytes.add(issue.toString().getBytes(StandardCharsets.UTF_8));
+        this.versionBytes = versions.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the serialized issue at the given position
+     */
+    byte[] getIssueBytes(int index) {
+        return issueBytes.get(index);
+    }
+
+    /**
+     * @return the serialized versions
+     */
+    byte[] getVersionBytes() {
+        return versionBytes;
+    }
+
+    /**
+     * Returns the versions that have a release date, as the releases manager builds them
+     */
+    public List<Release> getReleases() {
+        List<Release> releases = new ArrayList<>();
+        for (int i = 0; i < versions.length(); i++) {
+            JSONObject version = versions.getJSONObject(i);
+            if (version.has("releaseDate"))
+                releases.add(new Release(version.getString("id"), version.getString("name"),
+                        LocalDate.parse(version.getString("releaseDate")), version.optBoolean("released")));
+        }
+        return releases;
+    }
+
+    /**
+     * Loads a fixture saved by {@link #save}
+     *
+     * @param directory the directory of the project, named after it
+     * @return the fixture
+     * @throws IOException if the files can't be read
+     */
+    public static JiraFixture load(Path directory) throws IOException {
+        JSONArray versions = new JSONArray(Files.readString(directory.resolve(VERSIONS_FILE)));
+        JSONArray issueArray = new JSONArray(Files.readString(directory.resolve(ISSUES_FILE)));
+        List<JSONObject> issues = new ArrayList<>(issueArray.length());
+        for (int i = 0; i < issueArray.length(); i++) issues.add(issueArray.getJSONObject(i));
+        return new JiraFixture(directory.getFileName().toString(), versions, issues);
+    }
+
+    /**
+     * Saves the fixture in a directory named after the project
+     *
+     * @param parent the directory holding the fixtures
+     * @throws IOException if the files can't be written
+     */
+    public void save(Path parent) throws IOException {
+        Path directory = parent.resolve(project);
+        Files.createDirectories(directory);
+        Files.write(directory.resolve(VERSIONS_FILE), versionBytes);
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(ISSUES_FILE), StandardCharsets.UTF_8)) {
+            writer.write('[');
+            for (int i = 0; i < issueBytes.size(); i++) {
+                if (i > 0) writer.write(",\n");
+                writer.write(new String(issueBytes.get(i), StandardCharsets.UTF_8));
+            }
+            writer.write(']');
+        }
+    }
+
+    /**
+     * Records the versions and all the issues of a project from a Jira instance, bypassing the response cache
+     *
+     * @param baseUrl  the base URL of the REST API, e.g. "https://issues.apache.org/jira/rest/api/2/"
+     * @param project  the Jira name of the project
+     * @param pageSize the number of issues requested per page
+     * @return the fixture
+     * @throws IOException if the responses can't be retrieved
+     */
+    public static JiraFixture record(String baseUrl, String project, int pageSize) throws IOException {
+        String key = project.toUpperCase(Locale.ROOT);
+        JSONUtils jsonUtils = new JSONUtils(null);
+        JSONArray versions = jsonUtils.readJsonArrayFromUrl(baseUrl + "project/" + key + "/versions");
+
+        List<JSONObject> issues = new ArrayList<>();
+        int total = Integer.MAX_VALUE;
+        while (issues.size() < total) {
+            String url = String.format("%ssearch?jql=project=%%22%s%%22&startAt=%d&maxResults=%d", baseUrl, key, issues.size(), pageSize);
+            int before = issues.size();
+            total = jsonUtils.streamJsonArrayFieldFromUrl(url, "issues", issues::add).getInt("total");
+            if (issues.size() == before) break;
+        }
+        log.info("Recorded {} versions and {} issues of {}", versions.length(), issues.size(), key);
+        return new JiraFixture(key, versions, issues);
+    }
+
+    /**
+     * Generates a project shaped like the ones of issues.apache.org, with the fields the REST API returns (not
+     * only the ones the tickets manager reads): versions released about monthly, and issues of mixed types and
+     * statuses, each fixed in a version and affecting an earlier one
+     *
+     * @param project  the Jira name of the project
+     * @param releases the number of versions
+     * @param issues   the number of issues
+     * @param seed     the seed of the generator
+     * @return the fixture
+     */
+    public static JiraFixture synthetic(String project, int releases, int issues, long seed) {
+        String key = project.toUpperCase(Locale.ROOT);
+        Random random = new Random(seed);
+
+        JSONArray versions = new JSONArray();
+        LocalDate date = LocalDate.of(2011, 1, 15);
+        for (int i = 0; i < releases; i++) {
+            String id = String.valueOf(12310000 + i);
+            versions.put(new JSONObject()
+                    .put("self", "https://issues.apache.org/jira/rest/api/2/version/" + id)
+                    .put("id", id)
+                    .put("name", "4." + i + ".0")
+                    .put("archived", false)
+                    .put("released", true)
+                    .put("releaseDate", date.toString()));
+            date = date.plusDays(20 + (i * 7) % 25);
+        }
+
+        List<JSONObject> issueList = new ArrayList<>(issues);
+        for (int i = 0; i < issues; i++) issueList.add(issue(key, i + 1, versions, random));
+        return new JiraFixture(key, versions, issueList);
+    }
+
+    private static JSONObject issue(String project, int number, JSONArray versions, Random random) {
+        String id = String.valueOf(12600000 + number);
+        int fixedIndex = random.nextInt(versions.length());
+        JSONObject fixed = versions.getJSONObject(fixedIndex);
+        JSONObject affected = versions.getJSONObject(random.nextInt(fixedIndex + 1));
+        LocalDate created = LocalDate.parse(affected.getString("releaseDate")).plusDays(random.nextInt(30));
+        LocalDate resolved = LocalDate.parse(fixed.getString("releaseDate")).minusDays(random.nextInt(10));
+        if (resolved.isBefore(created)) resolved = created;
+
+        JSONObject fields = new JSONObject();
+        fields.put("summary", "Ledger " + number + " can't be recovered after a bookie restart with a { brace");
+        fields.put("issuetype", named(TYPES[random.nextInt(TYPES.length)], "1")
+                .put("subtask", false).put("description", "A problem which impairs or prevents the functions of the product."));
+        fields.put("status", named(STATUSES[random.nextInt(STATUSES.length)], "6")
+                .put("statusCategory", named("Done", "3").put("key", "done").put("colorName", "green")));
+        fields.put("resolution", random.nextInt(10) == 0 ? JSONObject.NULL : named(RESOLUTIONS[random.nextInt(RESOLUTIONS.length)], "1"));
+        fields.put("assignee", random.nextInt(5) == 0 ? JSONObject.NULL : new JSONObject()
+                .put("name", "committer" + random.nextInt(40)).put("displayName", "A Committer").put("active", true)
+                .put("avatarUrls", new JSONObject().put("48x48", "https://issues.apache.org/jira/secure/useravatar?avatarId=10452")));
+        fields.put("created", timestamp(created, random));
+        fields.put("updated", timestamp(resolved.plusDays(random.nextInt(5)), random));
+        fields.put("resolutiondate", random.nextInt(10) == 0 ? JSONObject.NULL : timestamp(resolved, random));
+        fields.put("fixVersions", new JSONArray().put(fixed));
+        fields.put("versions", new JSONArray().put(affected));
+        fields.put("labels", new JSONArray().put("recovery"));
+        fields.put("priority", named("Major", "3"));
+
+        return new JSONObject()
+                .put("expand", "operations,versionedRepresentations,editmeta,changelog,renderedFields")
+                .put("id", id)
+                .put("self", "https://issues.apache.org/jira/rest/api/2/issue/" + id)
+                .put("key", project + "-" + number)
+                .put("fields", fields);
+    }
+
+    private static JSONObject named(String name, String id) {
+        return new JSONObject().put("self", "https://issues.apache.org/jira/rest/api/2/x/" + id).put("id", id).put("name", name);
+    }
+
+    private static String timestamp(LocalDate date, Random random) {
+        return date.atTime(random.nextInt(24), random.nextInt(60), random.nextInt(60)).atOffset(ZoneOffset.UTC).format(TIMESTAMP);
+    }
+}
@@ -0,0 +1,330 @@
+package issues.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import properties.PropertiesManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local stand-in for the Jira REST API, serving "search" and "project/{key}/versions" from fixtures under the
+ * load described by a {@link LoadProfile}. The managers use it when "info.jira.baseUrl" is set to its
+ * {@link #getBaseUrl() base URL}, so that fetching can be measured without reaching issues.apache.org.
+ * <p>
+ * The search understands the JQL built by the tickets manager: the project, and the status, issue type,
+ * resolution and "updated" clauses. Any other clause is ignored. The stub is built with the tests and, in the
+ * benchmarks profile, with the benchmarks
+ */
+@Slf4j
+public class JiraStubServer implements Closeable {
+
+    private static final String API_PATH = "/rest/api/2/";
+    private static final int DEFAULT_PORT = 8089;
+    private static final int DEFAULT_THREADS = 16;
+    private static final int DEFAULT_RELEASES = 60;
+    private static final int DEFAULT_ISSUES = 5000;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int MAX_SEARCHES = 64;
+
+    private static final Pattern PROJECT_CLAUSE = Pattern.compile("project\\s*=\\s*\"?([\\w-]+)\"?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern VALUE_CLAUSE = Pattern.compile("\"(status|issueType|resolution)\"\\s*=\\s*\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UPDATED_CLAUSE = Pattern.compile("\"updated\"\\s*>=\\s*\"(\\d{4}-\\d{2}-\\d{2})\"");
+
+    private final Map<String, JiraFixture> fixtures = new ConcurrentHashMap<>();
+    // Matching issues of the last queries, so that paging through a search doesn't filter the issues again.
+    // Evicted in least recently used order, since incremental syncs make every "updated" clause a new query
+    private final LinkedHashMap<String, List<Integer>> searches = new LinkedHashMap<>(16, 0.75f, true);
+    private final LoadProfile profile;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    @Getter
+    private final AtomicLong requests = new AtomicLong();
+    @Getter
+    private final AtomicLong throttledRequests = new AtomicLong();
+
+    /**
+     * Starts a server on the loopback interface
+     *
+     * @param fixtures the projects to serve
+     * @param profile  the load to simulate
+     * @param port     the port to listen on, or 0 for any free port
+     * @param threads  the number of requests handled concurrently
+     * @throws IOException if the server can't be started
+     */
+    public JiraStubServer(List<JiraFixture> fixtures, LoadProfile profile, int port, int threads) throws IOException {
+        for (JiraFixture fixture : fixtures) this.fixtures.put(fixture.getProject(), fixture);
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.createContext(API_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Jira stub serving {} on {}", this.fixtures.keySet(), getBaseUrl());
+    }
+
+    /**
+     * @return the URL to set as "info.jira.baseUrl", ending with a slash
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + API_PATH;
+    }
+
+    /**
+     * Serves the given fixture in place of the one of its project, e.g. to simulate the updates made to the
+     * issues between two syncs
+     *
+     * @param fixture the new data of the project
+     */
+    public void setFixture(JiraFixture fixture) {
+        fixtures.put(fixture.getProject(), fixture);
+        synchronized (searches) {
+            searches.keySet().removeIf(key -> key.startsWith(fixture.getProject() + '\n'));
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            delay();
+
+            if (requests.get() <= profile.getThrottleFirst()
+                    || (profile.getThrottleRate() > 0 && ThreadLocalRandom.current().nextDouble() < profile.getThrottleRate())) {
+                throttledRequests.incrementAndGet();
+                if (profile.getRetryAfterSeconds() >= 0)
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(profile.getRetryAfterSeconds()));
+                send(exchange, TOO_MANY_REQUESTS, error("Rate limit exceeded"));
+                return;
+            }
+
+            String resource = exchange.getRequestURI().getRawPath().substring(API_PATH.length());
+            if (resource.equals("search")) {
+                search(exchange);
+            } else if (resource.startsWith("project/") && resource.endsWith("/versions")) {
+                JiraFixture fixture = fixtures.get(resource.substring("project/".length(), resource.length() - "/versions".length()).toUpperCase(Locale.ROOT));
+                if (fixture == null) send(exchange, 404, error("No project could be found"));
+                else send(exchange, 200, fixture.getVersionBytes());
+            } else {
+                send(exchange, 404, error("Unsupported resource " + resource));
+            }
+        } catch (RuntimeException e) {
+            log.error("Jira stub failed to answer {}: {}", exchange.getRequestURI(), e.getMessage());
+        }
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String jql = query.getOrDefault("jql", "");
+        Matcher project = PROJECT_CLAUSE.matcher(jql);
+        JiraFixture fixture = project.find() ? fixtures.get(project.group(1).toUpperCase(Locale.ROOT)) : null;
+        if (fixture == null) {
+            send(exchange, 400, error("The value of the project in the query does not exist"));
+            return;
+        }
+
+        List<Integer> matches = matches(fixture, jql);
+        int startAt = Math.max(0, parseInt(query.get("startAt"), 0));
+        int maxResults = Math.min(parseInt(query.get("maxResults"), 50), profile.getMaxPageSize());
+        int end = Math.min(matches.size(), startAt + Math.max(0, maxResults));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(String.format("{\"expand\":\"schema,names\",\"startAt\":%d,\"maxResults\":%d,\"total\":%d,\"issues\":[",
+                startAt, maxResults, matches.size()).getBytes(StandardCharsets.UTF_8));
+        for (int i = startAt; i < end; i++) {
+            if (i > startAt) body.write(',');
+            body.writeBytes(fixture.getIssueBytes(matches.get(i)));
+        }
+        body.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        send(exchange, 200, body.toByteArray());
+    }
+
+    /**
+     * Returns the positions of the issues matching the query, filtering them only if the query isn't cached
+     */
+    private List<Integer> matches(JiraFixture fixture, String jql) {
+        String key = fixture.getProject() + '\n' + jql;
+        synchronized (searches) {
+            List<Integer> cached = searches.get(key);
+            if (cached != null) return cached;
+        }
+
+        // Filter outside the lock: concurrent pages of a new query may filter it twice, but never block other queries
+        List<Integer> matches = filter(fixture, jql);
+        synchronized (searches) {
+            List<Integer> previous = searches.putIfAbsent(key, matches);
+            if (previous != null) return previous;
+
+            Iterator<List<Integer>> it = searches.values().iterator();
+            while (searches.size() > MAX_SEARCHES && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the positions of the issues matching the clauses of the query. Values of the same field are OR-ed,
+     * fields are AND-ed
+     */
+    private static List<Integer> filter(JiraFixture fixture, String jql) {
+        Map<String, Set<String>> accepted = new HashMap<>();
+        Matcher clause = VALUE_CLAUSE.matcher(jql);
+        while (clause.find())
+            accepted.computeIfAbsent(clause.group(1).toLowerCase(Locale.ROOT), k -> new HashSet<>()).add(normalize(clause.group(2)));
+        Matcher updated = UPDATED_CLAUSE.matcher(jql);
+        LocalDate updatedSince = updated.find() ? LocalDate.parse(updated.group(1)) : null;
+
+        List<Integer> matches = new ArrayList<>();
+        List<JSONObject> issues = fixture.getIssues();
+        for (int i = 0; i < issues.size(); i++) {
+            JSONObject fields = issues.get(i).getJSONObject("fields");
+            if (accepts(accepted.get("status"), fields.optJSONObject("status"))
+                    && accepts(accepted.get("issuetype"), fields.optJSONObject("issuetype"))
+                    && accepts(accepted.get("resolution"), fields.optJSONObject("resolution"))
+                    && (updatedSince == null || !LocalDate.parse(fields.getString("updated").substring(0, 10)).isBefore(updatedSince)))
+                matches.add(i);
+        }
+        return matches;
+    }
+
+    private static boolean accepts(Set<String> values, JSONObject named) {
+        return values == null || (named != null && values.contains(normalize(named.optString("name"))));
+    }
+
+    /**
+     * Makes the enum names used in the queries, e.g. "NEW_FEATURE", match the names in the issues
+     */
+    private static String normalize(String value) {
+        return value.replace('_', ' ').toLowerCase(Locale.ROOT);
+    }
+
+    private void delay() {
+        long millis = profile.getLatencyMillis();
+        if (profile.getJitterMillis() > 0) millis += ThreadLocalRandom.current().nextLong(profile.getJitterMillis() + 1);
+        if (millis <= 0) return;
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] error(String message) {
+        return new JSONObject().put("errorMessages", List.of(message)).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals < 0) continue;
+            query.put(parameter.substring(0, equals), URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Records fixtures, or serves them until the process is killed, e.g. from the benchmarks jar with
+     * "java -cp target/benchmarks.jar issues.stub.JiraStubServer".
+     * <p>
+     * "record KEY..." records the given projects (by default "info.name") from "info.jira.baseUrl" into
+     * "info.jira.stub.fixtures". Otherwise the projects found in "info.jira.stub.fixtures" are served, or, if
+     * that isn't set, synthetic "info.name" and cold start projects ("info.jira.stub.releases" versions and
+     * "info.jira.stub.issues" issues each), on "info.jira.stub.port" (8089 by default) with the load profile of
+     * {@link LoadProfile#fromProperties()}. None of these properties is set in the shipped info.properties;
+     * point "info.jira.baseUrl" at http://127.0.0.1:8089/rest/api/2/ to use the stub
+     */
+    public static void main(String[] args) throws IOException {
+        PropertiesManager properties = PropertiesManager.getInstance();
+        String fixturesDir = properties.getProperty("info.jira.stub.fixtures");
+
+        if (args.length > 0 && args[0].equals("record")) {
+            if (fixturesDir == null || fixturesDir.isBlank()) {
+                log.error("Set info.jira.stub.fixtures to the directory to record into");
+                return;
+            }
+            List<String> projects = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : List.of(properties.getProperty("info.name"));
+            int pageSize = properties.getIntProperty("info.jira.fetch.pageSize", 1000);
+            for (String project : projects)
+                JiraFixture.record(properties.getProperty("info.jira.baseUrl"), project, pageSize).save(Path.of(fixturesDir.trim()));
+            return;
+        }
+
+        List<JiraFixture> fixtures = new ArrayList<>();
+        if (fixturesDir != null && !fixturesDir.isBlank()) {
+            try (DirectoryStream<Path> directories = Files.newDirectoryStream(Path.of(fixturesDir.trim()), Files::isDirectory)) {
+                for (Path directory : directories) fixtures.add(JiraFixture.load(directory));
+            }
+        } else {
+            List<String> projects = new ArrayList<>();
+            projects.add(properties.getProperty("info.name"));
+            String coldStartProjects = properties.getProperty("info.proportion.coldStartProjects");
+            if (coldStartProjects != null)
+                Arrays.stream(coldStartProjects.split(",")).map(String::trim).filter(name -> !name.isEmpty()).forEach(projects::add);
+            int releases = properties.getIntProperty("info.jira.stub.releases", DEFAULT_RELEASES);
+            int issues = properties.getIntProperty("info.jira.stub.issues", DEFAULT_ISSUES);
+            for (int i = 0; i < projects.size(); i++)
+                fixtures.add(JiraFixture.synthetic(projects.get(i), releases, issues, i));
+        }
+
+        new JiraStubServer(fixtures, LoadProfile.fromProperties(),
+                properties.getIntProperty("info.jira.stub.port", DEFAULT_PORT),
+                properties.getIntProperty("info.jira.stub.threads", DEFAULT_THREADS));
+    }
+}
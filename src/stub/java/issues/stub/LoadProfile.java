@@ -0,0 +1,52 @@
+package issues.stub;
+
+import lombok.Getter;
+import lombok.Setter;
+import properties.PropertiesManager;
+
+/**
+ * How {@link JiraStubServer} degrades its responses to resemble a loaded Jira instance: a delay before each
+ * response, a cap on the page size, and requests rejected with 429 Too Many Requests, either a random share of
+ * them or the first ones
+ */
+@Getter
+@Setter
+public class LoadProfile {
+
+    // Fixed delay before each response
+    private long latencyMillis;
+    // Random extra delay, uniform in [0, jitterMillis]
+    private long jitterMillis;
+    // The most issues returned per page, whatever the requested page size; Jira caps it at 1000 by default
+    private int maxPageSize = 1000;
+    // Share of requests rejected with 429, in [0, 1]
+    private double throttleRate;
+    // Number of requests rejected with 429 before any other is answered, e.g. to test the retries
+    private int throttleFirst;
+    // Value of the Retry-After header of the rejected requests; if negative the header is left out, so that
+    // clients back off on their own
+    private int retryAfterSeconds = 1;
+
+    /**
+     * Returns a profile answering immediately, with Jira's default page size cap and no throttling
+     */
+    public static LoadProfile unloaded() {
+        return new LoadProfile();
+    }
+
+    /**
+     * Returns the profile configured by the optional "info.jira.stub.*" properties of info.properties:
+     * "latencyMillis", "jitterMillis", "maxPageSize", "throttleRate", "throttleFirst" and "retryAfterSeconds"
+     */
+    public static LoadProfile fromProperties() {
+        PropertiesManager properties = PropertiesManager.getInstance();
+        LoadProfile profile = new LoadProfile();
+        profile.setLatencyMillis(properties.getIntProperty("info.jira.stub.latencyMillis", 0));
+        profile.setJitterMillis(properties.getIntProperty("info.jira.stub.jitterMillis", 0));
+        profile.setMaxPageSize(properties.getIntProperty("info.jira.stub.maxPageSize", profile.getMaxPageSize()));
+        profile.setThrottleRate(properties.getDoubleProperty("info.jira.stub.throttleRate", 0));
+        profile.setThrottleFirst(properties.getIntProperty("info.jira.stub.throttleFirst", 0));
+        profile.setRetryAfterSeconds(properties.getIntProperty("info.jira.stub.retryAfterSeconds", profile.getRetryAfterSeconds()));
+        return profile;
+    }
+}
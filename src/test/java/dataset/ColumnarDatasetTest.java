@@ -0,0 +1,94 @@
+package dataset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarDatasetTest {
+
+    private static final List<Column> COLUMNS = List.of(
+            Column.string("method"),
+            Column.numeric("loc"),
+            Column.nominal("buggy", "yes", "no"));
+
+    @TempDir
+    Path dir;
+
+    private Path write(int rows) throws IOException {
+        Path path = dir.resolve("dataset" + ColumnarDatasetWriter.EXTENSION);
+        try (ColumnarDatasetWriter writer = new ColumnarDatasetWriter(path, COLUMNS)) {
+            for (int i = 0; i < rows; i++)
+                writer.writeRow(i % 7 == 0 ? null : "m" + i % 100, i % 5 == 0 ? null : i * 0.5, i % 2 == 0 ? "yes" : "no");
+        }
+        return path;
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        // More rows than fit in a spill buffer
+        int rows = 10_000;
+        ColumnarDataset dataset = ColumnarDataset.open(write(rows));
+
+        assertEquals(rows, dataset.getRowCount());
+        assertEquals(List.of("method", "loc", "buggy"), dataset.getColumns().stream().map(Column::getName).toList());
+        assertEquals(ColumnType.NOMINAL, dataset.getColumns().get(2).getType());
+
+        double[] loc = dataset.getNumericArray("loc");
+        int[] method = dataset.getCodeArray("method");
+        int[] buggy = dataset.getCodeArray("buggy");
+        for (int i = 0; i < rows; i++) {
+            if (i % 5 == 0) assertTrue(Double.isNaN(loc[i]));
+            else assertEquals(i * 0.5, loc[i]);
+            assertEquals(i % 7 == 0 ? null : "m" + i % 100, dataset.getString(method[i]));
+            assertEquals(i % 2 == 0 ? "yes" : "no", dataset.getString(buggy[i]));
+        }
+        assertEquals(buggy[1], dataset.getCode("no"));
+        assertEquals(-1, dataset.getCode("missing"));
+    }
+
+    @Test
+    void readsAnEmptyDataset() throws IOException {
+        ColumnarDataset dataset = ColumnarDataset.open(write(0));
+
+        assertEquals(0, dataset.getRowCount());
+        assertArrayEquals(new double[0], dataset.getNumericArray("loc"));
+        assertNull(dataset.getString(-1));
+    }
+
+    @Test
+    void rejectsMismatchedColumns() throws IOException {
+        ColumnarDataset dataset = ColumnarDataset.open(write(3));
+
+        assertThrows(IllegalArgumentException.class, () -> dataset.getNumericColumn("method"));
+        assertThrows(IllegalArgumentException.class, () -> dataset.getCodeColumn("loc"));
+        assertThrows(IllegalArgumentException.class, () -> dataset.getColumnIndex("nope"));
+    }
+
+    @Test
+    void rejectsCorruptedFiles() throws IOException {
+        Path path = write(3);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = dir.resolve("truncated" + ColumnarDatasetWriter.EXTENSION);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> ColumnarDataset.open(truncated));
+
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 0);
+        Path notColumnar = dir.resolve("other" + ColumnarDatasetWriter.EXTENSION);
+        Files.write(notColumnar, bytes);
+        assertThrows(IOException.class, () -> ColumnarDataset.open(notColumnar));
+    }
+}
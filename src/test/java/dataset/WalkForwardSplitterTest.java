@@ -0,0 +1,75 @@
+package dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static dataset.WalkForwardSplitter.NEVER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalkForwardSplitterTest {
+
+    // Two rows of release 1, three of release 2, one of release 4
+    private static final int[] RELEASES = {1, 1, 2, 2, 2, 4};
+    // Row 0 is known buggy since release 2, row 1 since release 4, row 3 since release 3
+    private static final int[] BUGGY_SINCE = {2, 4, NEVER, 3, NEVER, 5};
+
+    private final WalkForwardSplitter splitter = new WalkForwardSplitter(RELEASES, BUGGY_SINCE);
+
+    @Test
+    void testsEachReleaseButTheFirstOnTheOnesBefore() {
+        List<Fold> folds = splitter.getFolds();
+
+        assertEquals(6, splitter.size());
+        assertEquals(2, folds.size());
+
+        Fold second = folds.get(0);
+        assertEquals(2, second.getTestRelease());
+        assertEquals(2, second.getTrainEnd());
+        assertEquals(2, second.getTrainSize());
+        assertEquals(2, second.getTestStart());
+        assertEquals(5, second.getTestEnd());
+        assertEquals(3, second.getTestSize());
+
+        Fold fourth = folds.get(1);
+        assertEquals(4, fourth.getTestRelease());
+        assertEquals(5, fourth.getTrainSize());
+        assertEquals(5, fourth.getTestStart());
+        assertEquals(1, fourth.getTestSize());
+        assertEquals("release 4: train [0, 5), test [5, 6)", fourth.toString());
+    }
+
+    @Test
+    void labelsTrainingRowsOnlyWithWhatWasKnown() {
+        List<Fold> folds = splitter.getFolds();
+        Fold second = folds.get(0);
+        Fold fourth = folds.get(1);
+
+        assertTrue(second.isTrainBuggy(0));
+        // Not known yet when testing release 2
+        assertFalse(second.isTrainBuggy(1));
+        assertTrue(fourth.isTrainBuggy(1));
+        assertTrue(fourth.isTrainBuggy(3));
+        assertFalse(fourth.isTrainBuggy(2));
+
+        // Test rows see every ticket
+        assertTrue(second.isTestBuggy(3));
+        assertFalse(second.isTestBuggy(4));
+        assertTrue(fourth.isTestBuggy(5));
+    }
+
+    @Test
+    void hasNoFoldsWithASingleRelease() {
+        assertEquals(List.of(), new WalkForwardSplitter(new int[]{3, 3}, new int[]{NEVER, NEVER}).getFolds());
+        assertEquals(List.of(), new WalkForwardSplitter(new int[0], new int[0]).getFolds());
+    }
+
+    @Test
+    void rejectsUnsortedOrMislabeledRows() {
+        assertThrows(IllegalArgumentException.class, () -> new WalkForwardSplitter(new int[]{1, 2, 1}, new int[3]));
+        assertThrows(IllegalArgumentException.class, () -> new WalkForwardSplitter(new int[]{1, 2}, new int[1]));
+    }
+}
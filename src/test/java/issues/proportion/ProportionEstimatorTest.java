@@ -0,0 +1,157 @@
+package issues.proportion;
+
+import issues.model.Release;
+import issues.model.Ticket;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import issues.release.ReleaseIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProportionEstimatorTest {
+
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(2020, 1, 1);
+
+    // One release a month, r0 .. r9
+    private final List<Release> releases = new ArrayList<>();
+
+    ProportionEstimatorTest() {
+        for (int i = 0; i < 10; i++)
+            releases.add(new Release(String.valueOf(i), "r" + i, FIRST_RELEASE.plusMonths(i), true));
+    }
+
+    /**
+     * A ticket opened during release ov, fixed in release fv and closed on the given day of 2021
+     */
+    private Ticket ticket(String key, Integer iv, int ov, int fv, int closedDay) {
+        Ticket ticket = new Ticket(key, key, FIRST_RELEASE.plusMonths(ov).plusDays(10),
+                LocalDate.ofYearDay(2021, closedDay), TicketType.BUG, TicketStatus.CLOSED, "nobody");
+        ticket.setInjected(iv == null ? null : releases.get(iv));
+        ticket.setFixed(releases.get(fv));
+        return ticket;
+    }
+
+    /**
+     * Two tickets with known IV, with P = (4 - 0) / (4 - 2) = 2 and P = (5 - 3) / (5 - 3) = 1, then one without
+     * IV, with OV = 4 and FV = 8
+     */
+    private VersionResolution resolve() {
+        List<Ticket> tickets = List.of(
+                ticket("A", 0, 2, 4, 1),
+                ticket("B", 3, 3, 5, 2),
+                ticket("C", null, 4, 8, 3));
+        return VersionResolver.resolveAll(tickets, new ReleaseIndex(releases));
+    }
+
+    private static ProportionEstimator estimator(ProportionMethod method) {
+        ProportionEstimator estimator = new ProportionEstimator(method);
+        estimator.setColdStartThreshold(0);
+        estimator.setColdStartProportion(1.25);
+        return estimator;
+    }
+
+    @Test
+    void computesProportionFromTheVersions() {
+        assertEquals(2.0, Proportion.computeProportion(0, 2, 4));
+        assertEquals(1.0, Proportion.computeProportion(3, 3, 5));
+        // FV - OV is at least 1
+        assertEquals(2.0, Proportion.computeProportion(1, 3, 3));
+        assertEquals(2, Proportion.estimateInjectedVersion(4, 8, 1.5));
+        assertEquals(0, Proportion.estimateInjectedVersion(4, 8, 3.0));
+    }
+
+    @Test
+    void incrementalUsesTheMeanOfAllPriorTickets() {
+        VersionResolution resolution = resolve();
+
+        assertEquals(1, estimator(ProportionMethod.INCREMENTAL).estimate(resolution));
+        // P = (2 + 1) / 2, IV = 8 - (8 - 4) * 1.5
+        assertEquals(2, resolution.getInjectedVersions()[2]);
+        assertEquals(1, resolution.getInjectedEstimated());
+    }
+
+    @Test
+    void movingWindowUsesTheLastTickets() {
+        VersionResolution resolution = resolve();
+        ProportionEstimator estimator = estimator(ProportionMethod.MOVING_WINDOW);
+        // A window of one ticket out of three
+        estimator.setWindowPercent(34);
+
+        assertEquals(1, estimator.estimate(resolution));
+        // P = 1 from B only, IV = 8 - (8 - 4) * 1
+        assertEquals(4, resolution.getInjectedVersions()[2]);
+    }
+
+    @Test
+    void coldStartUsesTheProportionOfOtherProjects() {
+        VersionResolution resolution = resolve();
+
+        assertEquals(1, estimator(ProportionMethod.COLD_START).estimate(resolution));
+        // IV = 8 - (8 - 4) * 1.25
+        assertEquals(3, resolution.getInjectedVersions()[2]);
+    }
+
+    @Test
+    void fallsBackToColdStartBelowTheThreshold() {
+        VersionResolution resolution = resolve();
+        ProportionEstimator estimator = estimator(ProportionMethod.INCREMENTAL);
+        estimator.setColdStartThreshold(3);
+
+        estimator.estimate(resolution);
+        assertEquals(3, resolution.getInjectedVersions()[2]);
+    }
+
+    @Test
+    void computesTheColdStartProportionOnlyWhenNeeded() {
+        AtomicInteger calls = new AtomicInteger();
+        ProportionEstimator estimator = new ProportionEstimator(ProportionMethod.INCREMENTAL);
+        estimator.setColdStartProportion(() -> {
+            calls.incrementAndGet();
+            return 1.25;
+        });
+
+        estimator.setColdStartThreshold(2);
+        estimator.estimate(resolve());
+        assertEquals(0, calls.get());
+
+        estimator.setColdStartThreshold(3);
+        estimator.estimate(resolve());
+        estimator.estimate(resolve());
+        assertEquals(1, calls.get());
+        assertEquals(1.25, estimator.getColdStartProportion());
+    }
+
+    @Test
+    void ticketsResolvedTheSameDayDoNotLearnFromEachOther() {
+        List<Ticket> tickets = List.of(
+                ticket("A", 0, 2, 4, 1),
+                ticket("C", null, 4, 8, 1));
+        VersionResolution resolution = VersionResolver.resolveAll(tickets, new ReleaseIndex(releases));
+        ProportionEstimator estimator = new ProportionEstimator(ProportionMethod.INCREMENTAL);
+        estimator.setColdStartThreshold(0);
+
+        // No prior ticket and no cold start proportion
+        assertEquals(0, estimator.estimate(resolution));
+        assertEquals(VersionResolution.UNRESOLVED, resolution.getInjectedVersions()[1]);
+    }
+
+    @Test
+    void appliesTheEstimatesToTicketsWithoutInjectedVersion() {
+        VersionResolution resolution = resolve();
+        estimator(ProportionMethod.INCREMENTAL).estimate(resolution);
+        assertNull(resolution.getTicket(2).getInjected());
+
+        ProportionEstimator.applyTo(resolution);
+        assertSame(releases.get(0), resolution.getTicket(0).getInjected());
+        assertSame(releases.get(3), resolution.getTicket(1).getInjected());
+        assertSame(releases.get(2), resolution.getTicket(2).getInjected());
+    }
+}
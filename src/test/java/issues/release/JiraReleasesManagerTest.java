@@ -0,0 +1,50 @@
+package issues.release;
+
+import issues.JSONUtils;
+import issues.model.Release;
+import issues.stub.JiraFixture;
+import issues.stub.JiraStubServer;
+import issues.stub.LoadProfile;
+import org.junit.jupiter.api.Test;
+import properties.ProjectConfig;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JiraReleasesManagerTest {
+
+    private static final JiraFixture FIXTURE = JiraFixture.synthetic("BOOKKEEPER", 12, 10, 3);
+
+    private static JiraReleasesManager manager(JiraStubServer stub, String project) {
+        return new JiraReleasesManager(new ProjectConfig(project, stub.getBaseUrl(), null, List.of(project)), new JSONUtils(null));
+    }
+
+    private static List<String> names(List<Release> releases) {
+        return releases.stream().map(Release::getName).toList();
+    }
+
+    @Test
+    void retrievesTheReleasesInDateOrder() throws IOException {
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), LoadProfile.unloaded(), 0, 2)) {
+            JiraReleasesManager manager = manager(stub, "bookkeeper");
+            manager.getReleasesInfo();
+            assertEquals(names(FIXTURE.getReleases()), names(manager.getReleases()));
+            assertEquals(FIXTURE.getReleases().get(3).getId(), manager.getReleaseIndex().get(3).getId());
+
+            manager.getReleasesInfo(0.5);
+            assertEquals(names(FIXTURE.getReleases().subList(0, 6)), names(manager.getReleases()));
+        }
+    }
+
+    @Test
+    void unknownProjectsHaveNoReleases() throws IOException {
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), LoadProfile.unloaded(), 0, 2)) {
+            JiraReleasesManager manager = manager(stub, "ZOOKEEPER");
+            manager.getReleasesInfo();
+            assertTrue(manager.getReleases().isEmpty());
+        }
+    }
+}
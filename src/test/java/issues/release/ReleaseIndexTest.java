@@ -0,0 +1,87 @@
+package issues.release;
+
+import issues.model.Release;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReleaseIndexTest {
+
+    private static Release release(String id, String date) {
+        return new Release(id, "v" + id, LocalDate.parse(date), true);
+    }
+
+    // Given out of order; 2 and 3 share a date
+    private final List<Release> releases = List.of(
+            release("4", "2020-04-01"),
+            release("1", "2020-01-01"),
+            release("2", "2020-02-01"),
+            release("3", "2020-02-01"));
+
+    private final ReleaseIndex index = new ReleaseIndex(releases);
+
+    @Test
+    void sortsByDateKeepingTiesInOrder() {
+        assertEquals(List.of("1", "2", "3", "4"), index.getReleases().stream().map(Release::getId).toList());
+        assertEquals(4, index.size());
+        assertEquals((int) LocalDate.parse("2020-02-01").toEpochDay(), index.getEpochDays()[1]);
+    }
+
+    @Test
+    void findsReleasesById() {
+        assertEquals(0, index.indexOf(release("1", "2020-01-01")));
+        assertEquals(2, index.indexOf(release("3", "2020-02-01")));
+        assertEquals(-1, index.indexOf(release("3", "2020-03-01")));
+        assertEquals(-1, index.indexOf(release("9", "2020-02-01")));
+        assertEquals(-1, index.indexOf(null));
+    }
+
+    @Test
+    void resolvesTheOpeningVersion() {
+        assertEquals(-1, index.openingVersionIndex(LocalDate.parse("2019-12-31")));
+        assertEquals(0, index.openingVersionIndex(LocalDate.parse("2020-01-01")));
+        assertEquals(0, index.openingVersionIndex(LocalDate.parse("2020-01-31")));
+        // The first of the releases sharing the date
+        assertEquals(1, index.openingVersionIndex(LocalDate.parse("2020-02-01")));
+        assertEquals(1, index.openingVersionIndex(LocalDate.parse("2020-03-15")));
+        assertEquals(3, index.openingVersionIndex(LocalDate.parse("2021-01-01")));
+    }
+
+    @Test
+    void resolvesTheFixVersion() {
+        assertEquals(0, index.fixVersionIndex(LocalDate.parse("2019-06-01")));
+        assertEquals(1, index.fixVersionIndex(LocalDate.parse("2020-01-02")));
+        assertEquals(1, index.fixVersionIndex(LocalDate.parse("2020-02-01")));
+        assertEquals(3, index.fixVersionIndex(LocalDate.parse("2020-04-01")));
+        assertEquals(-1, index.fixVersionIndex(LocalDate.parse("2020-04-02")));
+    }
+
+    @Test
+    void findsTheFirstReleaseAfterADate() {
+        assertEquals(0, index.firstReleaseAfter(LocalDate.parse("2019-12-31")));
+        assertEquals(1, index.firstReleaseAfter(LocalDate.parse("2020-01-01")));
+        assertEquals(3, index.firstReleaseAfter(LocalDate.parse("2020-02-01")));
+        assertEquals(4, index.firstReleaseAfter(LocalDate.parse("2020-04-01")));
+    }
+
+    @Test
+    void listsTheAffectedVersions() {
+        assertEquals(List.of("1", "2", "3"), index.affectedVersions(0, 3).stream().map(Release::getId).toList());
+        assertEquals(List.of("4"), index.affectedVersions(3, 4).stream().map(Release::getId).toList());
+        assertEquals(List.of(), index.affectedVersions(2, 2));
+        assertEquals(List.of(), index.affectedVersions(-1, 2));
+        assertEquals(List.of(), index.affectedVersions(1, 5));
+    }
+
+    @Test
+    void handlesNoReleases() {
+        ReleaseIndex empty = new ReleaseIndex(List.of());
+
+        assertEquals(-1, empty.openingVersionIndex(LocalDate.parse("2020-01-01")));
+        assertEquals(-1, empty.fixVersionIndex(LocalDate.parse("2020-01-01")));
+        assertEquals(0, empty.firstReleaseAfter(LocalDate.parse("2020-01-01")));
+    }
+}
@@ -0,0 +1,169 @@
+package issues.ticket;
+
+import issues.JSONUtils;
+import issues.model.ResolutionType;
+import issues.model.Ticket;
+import issues.model.TicketFilter;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import issues.stub.JiraFixture;
+import issues.stub.JiraStubServer;
+import issues.stub.LoadProfile;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import properties.ProjectConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JiraTicketsManagerTest {
+
+    private static final String PROJECT = "BOOKKEEPER";
+    private static final JiraFixture FIXTURE = JiraFixture.synthetic(PROJECT, 12, 250, 7);
+
+    @TempDir
+    Path storeDirectory;
+
+    private static LoadProfile profile(int maxPageSize) {
+        LoadProfile profile = LoadProfile.unloaded();
+        profile.setMaxPageSize(maxPageSize);
+        return profile;
+    }
+
+    private JiraTicketsManager manager(JiraStubServer stub, int fetchParallelism) {
+        ProjectConfig project = new ProjectConfig(PROJECT, stub.getBaseUrl(), null, List.of(PROJECT));
+        JiraTicketsManager manager = new JiraTicketsManager(project, new JSONUtils(null));
+        manager.setMaxRequestsPerSecond(0);
+        manager.setPageSize(100);
+        manager.setFetchParallelism(fetchParallelism);
+        manager.setStoreDirectory(storeDirectory);
+        return manager;
+    }
+
+    private static TicketFilter closedFixedBugs() {
+        TicketFilter filter = new TicketFilter();
+        filter.setStatuses(List.of(TicketStatus.CLOSED, TicketStatus.RESOLVED, TicketStatus.IN_PROGRESS));
+        filter.setTypes(List.of(TicketType.BUG));
+        filter.setResolutions(List.of(ResolutionType.FIXED));
+        return filter;
+    }
+
+    private static boolean isClosedFixedBug(JSONObject issue) {
+        JSONObject fields = issue.getJSONObject("fields");
+        return Set.of("Closed", "Resolved").contains(fields.getJSONObject("status").getString("name"))
+                && fields.getJSONObject("issuetype").getString("name").equals("Bug")
+                && fields.optJSONObject("resolution") != null
+                && fields.getJSONObject("resolution").getString("name").equals("Fixed");
+    }
+
+    private static List<String> keys(List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::getKey).toList();
+    }
+
+    private static List<String> keysOf(List<JSONObject> issues) {
+        return issues.stream().map(issue -> issue.getString("key")).toList();
+    }
+
+    @Test
+    void mergesThePagesInOrder() throws IOException {
+        // The stub caps the pages below the requested size
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), profile(40), 0, 4)) {
+            for (int parallelism : new int[]{1, 4}) {
+                JiraTicketsManager manager = manager(stub, parallelism);
+                manager.retrieveTickets();
+                assertEquals(keysOf(FIXTURE.getIssues()), keys(manager.getTickets()));
+            }
+        }
+    }
+
+    @Test
+    void sendsTheFilterAsPercentEncodedJql() throws IOException {
+        List<String> expected = keysOf(FIXTURE.getIssues().stream().filter(JiraTicketsManagerTest::isClosedFixedBug).toList());
+        assertFalse(expected.isEmpty());
+
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), profile(1000), 0, 4)) {
+            JiraTicketsManager manager = manager(stub, 1);
+            // "in progress" puts a space in the query
+            manager.retrieveTickets(closedFixedBugs());
+            assertEquals(expected, keys(manager.getTickets()));
+        }
+    }
+
+    @Test
+    void retriesThrottledRequests() throws IOException {
+        LoadProfile profile = profile(1000);
+        profile.setThrottleFirst(3);
+        profile.setRetryAfterSeconds(0);
+
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), profile, 0, 4)) {
+            // The releases are requested first, and retried until they get through
+            JiraTicketsManager manager = manager(stub, 1);
+            assertEquals(FIXTURE.getReleases().size(), manager.getReleasesManager().getReleases().size());
+
+            manager.retrieveTickets();
+            assertEquals(3, stub.getThrottledRequests().get());
+            assertEquals(FIXTURE.getIssues().size(), manager.getTickets().size());
+        }
+    }
+
+    @Test
+    void backsOffWithoutRetryAfter() throws IOException {
+        LoadProfile profile = profile(1000);
+        profile.setThrottleFirst(1);
+        profile.setRetryAfterSeconds(-1);
+
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), profile, 0, 4)) {
+            long start = System.nanoTime();
+            JiraTicketsManager manager = manager(stub, 1);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(1, stub.getThrottledRequests().get());
+            assertEquals(FIXTURE.getReleases().size(), manager.getReleasesManager().getReleases().size());
+            assertTrue(elapsedMillis >= 500, "retried after " + elapsedMillis + " ms");
+        }
+    }
+
+    @Test
+    void incrementalSyncFollowsReopenedAndClosedTickets() throws IOException {
+        List<JSONObject> issues = new ArrayList<>();
+        for (JSONObject issue : FIXTURE.getIssues()) issues.add(new JSONObject(issue.toString()));
+        List<String> closed = keysOf(issues.stream().filter(JiraTicketsManagerTest::isClosedFixedBug).toList());
+
+        try (JiraStubServer stub = new JiraStubServer(List.of(FIXTURE), profile(1000), 0, 4)) {
+            JiraTicketsManager manager = manager(stub, 1);
+            manager.retrieveTicketsIncrementally(closedFixedBugs());
+            assertEquals(closed, keys(manager.getTickets()));
+
+            // Today, a closed ticket is reopened and an open bug is fixed
+            String updated = LocalDate.now() + "T12:00:00.000+0000";
+            JSONObject reopened = issues.stream().filter(issue -> issue.getString("key").equals(closed.get(0))).findFirst().orElseThrow();
+            reopened.getJSONObject("fields")
+                    .put("status", new JSONObject().put("id", "4").put("name", "Reopened"))
+                    .put("resolution", JSONObject.NULL)
+                    .put("updated", updated);
+            JSONObject fixed = issues.stream().filter(issue -> !isClosedFixedBug(issue)).findFirst().orElseThrow();
+            fixed.getJSONObject("fields")
+                    .put("issuetype", new JSONObject().put("id", "1").put("name", "Bug"))
+                    .put("status", new JSONObject().put("id", "6").put("name", "Closed"))
+                    .put("resolution", new JSONObject().put("id", "1").put("name", "Fixed"))
+                    .put("updated", updated);
+            stub.setFixture(new JiraFixture(PROJECT, FIXTURE.getVersions(), issues));
+
+            List<String> expected = new ArrayList<>(closed.subList(1, closed.size()));
+            expected.add(fixed.getString("key"));
+            JiraTicketsManager nextRun = manager(stub, 1);
+            nextRun.retrieveTicketsIncrementally(closedFixedBugs());
+            assertEquals(expected, keys(nextRun.getTickets()));
+            assertFalse(keys(nextRun.getTickets()).contains(reopened.getString("key")));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package issues.ticket;
+
+import issues.model.ResolutionType;
+import issues.model.Ticket;
+import issues.model.TicketFilter;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketStoreTest {
+
+    private static final LocalDate CREATED = LocalDate.of(2024, 1, 10);
+
+    @TempDir
+    Path dir;
+
+    private static TicketFilter closedBugs() {
+        TicketFilter filter = new TicketFilter();
+        filter.setStatuses(List.of(TicketStatus.CLOSED, TicketStatus.RESOLVED));
+        filter.setTypes(List.of(TicketType.BUG));
+        filter.setResolutions(List.of(ResolutionType.FIXED));
+        return filter;
+    }
+
+    private static Ticket ticket(String key, TicketStatus status, ResolutionType resolution) {
+        Ticket ticket = new Ticket("1" + key.hashCode(), key, CREATED, CREATED.plusDays(5), TicketType.BUG, status, "");
+        ticket.setResolution(resolution);
+        return ticket;
+    }
+
+    private static List<String> keys(TicketStore store) {
+        return store.getTickets().stream().map(Ticket::getKey).toList();
+    }
+
+    @Test
+    void reopenedTicketsAreRemovedFromTheStore() throws Exception {
+        Path file = dir.resolve("store.json");
+        TicketStore store = TicketStore.load(file, id -> null);
+        store.merge(List.of(ticket("PRJ-1", TicketStatus.CLOSED, ResolutionType.FIXED),
+                ticket("PRJ-2", TicketStatus.CLOSED, ResolutionType.FIXED)), closedBugs());
+        store.save(LocalDate.of(2024, 2, 1));
+
+        // PRJ-1 is reopened: the incremental search returns it although it no longer matches the filter
+        TicketStore reloaded = TicketStore.load(file, id -> null);
+        reloaded.merge(List.of(ticket("PRJ-1", TicketStatus.REOPENED, null)), closedBugs());
+
+        assertEquals(List.of("PRJ-2"), keys(reloaded));
+    }
+
+    @Test
+    void ticketsClosedAgainAreStoredWithTheirNewFields() {
+        TicketStore store = TicketStore.load(dir.resolve("store.json"), id -> null);
+        store.merge(List.of(ticket("PRJ-1", TicketStatus.CLOSED, ResolutionType.FIXED)), closedBugs());
+        store.merge(List.of(ticket("prj-1", TicketStatus.REOPENED, null)), closedBugs());
+        assertTrue(store.getTickets().isEmpty());
+
+        store.merge(List.of(ticket("PRJ-1", TicketStatus.RESOLVED, ResolutionType.FIXED),
+                ticket("PRJ-3", TicketStatus.OPEN, null)), closedBugs());
+
+        assertEquals(List.of("PRJ-1"), keys(store));
+        assertEquals(TicketStatus.RESOLVED, store.getTickets().get(0).getStatus());
+    }
+
+    @Test
+    void anEmptyFilterKeepsEveryTicket() {
+        TicketStore store = TicketStore.load(dir.resolve("store.json"), id -> null);
+        store.merge(List.of(ticket("PRJ-1", TicketStatus.REOPENED, null)), new TicketFilter());
+
+        assertEquals(List.of("PRJ-1"), keys(store));
+        assertNull(store.getHighWaterMark());
+    }
+}
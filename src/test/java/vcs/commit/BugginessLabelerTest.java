@@ -0,0 +1,152 @@
+package vcs.commit;
+
+import issues.model.Release;
+import issues.model.Ticket;
+import issues.model.TicketFilter;
+import issues.model.TicketStatus;
+import issues.model.TicketType;
+import issues.release.ReleaseIndex;
+import issues.ticket.JiraTicketsManager;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import properties.ProjectConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BugginessLabelerTest {
+
+    private static final String FOO = "class A {\n  void foo() {\n    int x = %d;\n  }\n\n  void bar() {\n  }\n}\n";
+
+    // Nothing listens there, so the managers retrieve no releases
+    private static final String NO_JIRA = "http://127.0.0.1:1/";
+
+    @TempDir
+    Path repo;
+
+    private final List<Release> releases = List.of(
+            new Release("1", "r1", LocalDate.of(2020, 1, 10), true),
+            new Release("2", "r2", LocalDate.of(2020, 2, 10), true),
+            new Release("3", "r3", LocalDate.of(2020, 3, 10), true),
+            new Release("4", "r4", LocalDate.of(2020, 4, 10), true));
+
+    private static void commit(Git git, Path file, String content, String message, LocalDate date) throws IOException, GitAPIException {
+        Files.writeString(file, content);
+        git.add().addFilepattern(file.getFileName().toString()).call();
+        PersonIdent ident = new PersonIdent("dev", "dev@example.org", date.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    /**
+     * A tickets manager serving the given ticket instead of the ones in Jira
+     */
+    private static JiraTicketsManager ticketsManager(ProjectConfig project, Ticket ticket) {
+        return new JiraTicketsManager(project) {
+            @Override
+            public void retrieveTickets(TicketFilter ticketFilter) {
+                // The ticket is given
+            }
+
+            @Override
+            public Map<String, Ticket> getTicketIndex() {
+                return Map.of(JiraTicketsManager.normalizeKey(ticket.getKey()), ticket);
+            }
+        };
+    }
+
+    private GitCommitManager commitManager(Ticket ticket) throws IOException {
+        ProjectConfig project = new ProjectConfig("BOOKKEEPER", NO_JIRA, repo.toString(), List.of("BOOKKEEPER"));
+        GitCommitManager commitManager = new GitCommitManager(ticketsManager(project, ticket), project);
+        commitManager.getCommitsWithTickets();
+        return commitManager;
+    }
+
+    @Test
+    void labelsTheMethodsModifiedByFixCommitsInTheAffectedVersions() throws IOException, GitAPIException {
+        Path file = repo.resolve("A.java");
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            commit(git, file, String.format(FOO, 1), "Add A", LocalDate.of(2020, 1, 1));
+            commit(git, file, String.format(FOO, 2), "BOOKKEEPER-1: fix foo", LocalDate.of(2020, 2, 20));
+        }
+
+        // Injected in r1, fixed in r3, resolved between r2 and r3
+        Ticket ticket = new Ticket("1", "BOOKKEEPER-1", LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 20),
+                TicketType.BUG, TicketStatus.CLOSED, "dev");
+        ticket.setInjected(releases.get(0));
+        ticket.setFixed(releases.get(2));
+
+        GitCommitManager commitManager = commitManager(ticket);
+        assertEquals(1, commitManager.getCommitTicketsIndex().size());
+
+        BugginessLabels labels = new BugginessLabeler(commitManager).label(new ReleaseIndex(releases));
+
+        assertEquals(1, labels.size());
+        assertTrue(labels.isBuggy("A.java", "foo()", 1));
+        assertTrue(labels.isBuggy("A.java", "foo()", 2));
+        assertFalse(labels.isBuggy("A.java", "foo()", 3));
+        // Known since r3, the first release after the ticket was resolved
+        assertEquals(3, labels.buggySince("A.java", "foo()", 1));
+        // Untouched by the fix
+        assertFalse(labels.isBuggy("A.java", "bar()", 1));
+    }
+
+    @Test
+    void labelsTheEarlierPathsOfRenamedFiles() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            commit(git, repo.resolve("A.java"), String.format(FOO, 1), "Add A", LocalDate.of(2020, 1, 1));
+
+            // Renamed between r2 and r3
+            Files.move(repo.resolve("A.java"), repo.resolve("B.java"));
+            git.add().addFilepattern("B.java").call();
+            git.rm().addFilepattern("A.java").call();
+            PersonIdent ident = new PersonIdent("dev", "dev@example.org", LocalDate.of(2020, 2, 15).atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+            git.commit().setMessage("Rename A").setAuthor(ident).setCommitter(ident).call();
+
+            commit(git, repo.resolve("B.java"), String.format(FOO, 2), "BOOKKEEPER-3: fix foo", LocalDate.of(2020, 3, 20));
+        }
+
+        // Injected in r1, fixed in r4
+        Ticket ticket = new Ticket("3", "BOOKKEEPER-3", LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 20),
+                TicketType.BUG, TicketStatus.CLOSED, "dev");
+        ticket.setInjected(releases.get(0));
+        ticket.setFixed(releases.get(3));
+
+        BugginessLabels labels = new BugginessLabeler(commitManager(ticket)).label(new ReleaseIndex(releases));
+
+        // r1 and r2 have A.java, r3 has B.java
+        assertTrue(labels.isBuggy("A.java", "foo()", 1));
+        assertTrue(labels.isBuggy("A.java", "foo()", 2));
+        assertFalse(labels.isBuggy("A.java", "foo()", 3));
+        assertTrue(labels.isBuggy("B.java", "foo()", 3));
+        assertFalse(labels.isBuggy("B.java", "foo()", 4));
+        assertEquals(4, labels.buggySince("A.java", "foo()", 1));
+        assertFalse(labels.isBuggy("A.java", "bar()", 1));
+    }
+
+    @Test
+    void ignoresTicketsWithoutInjectedVersion() throws IOException, GitAPIException {
+        Path file = repo.resolve("A.java");
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            commit(git, file, String.format(FOO, 1), "Add A", LocalDate.of(2020, 1, 1));
+            commit(git, file, String.format(FOO, 2), "BOOKKEEPER-2: fix foo", LocalDate.of(2020, 2, 20));
+        }
+
+        Ticket ticket = new Ticket("2", "BOOKKEEPER-2", LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 20),
+                TicketType.BUG, TicketStatus.CLOSED, "dev");
+        ticket.setFixed(releases.get(2));
+
+        assertEquals(0, new BugginessLabeler(commitManager(ticket)).label(new ReleaseIndex(releases)).size());
+    }
+}
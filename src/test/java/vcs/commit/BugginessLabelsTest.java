@@ -0,0 +1,54 @@
+package vcs.commit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static vcs.commit.BugginessLabels.NEVER;
+
+class BugginessLabelsTest {
+
+    private static final String FOO = BugginessLabels.keyOf("A.java", "foo()");
+    private static final String BAR = BugginessLabels.keyOf("A.java", "bar(int)");
+
+    @Test
+    void looksUpTheReleasesOfEachInterval() {
+        // Buggy in [2, 4) known since 5, and in [6, 7) known since 7
+        BugginessLabels labels = new BugginessLabels(Map.of(FOO, List.of(new int[]{6, 7, 7}, new int[]{2, 4, 5})));
+
+        assertEquals(1, labels.size());
+        assertFalse(labels.isBuggy("A.java", "foo()", 1));
+        assertEquals(5, labels.buggySince("A.java", "foo()", 2));
+        assertEquals(5, labels.buggySince("A.java", "foo()", 3));
+        assertEquals(NEVER, labels.buggySince("A.java", "foo()", 4));
+        assertEquals(NEVER, labels.buggySince("A.java", "foo()", 5));
+        assertEquals(7, labels.buggySince("A.java", "foo()", 6));
+        assertFalse(labels.isBuggy("A.java", "foo()", 7));
+        assertFalse(labels.isBuggy("B.java", "foo()", 2));
+    }
+
+    @Test
+    void overlappingBugsAreKnownSinceTheEarliestTicket() {
+        // [1, 5) known since 6, and [3, 8) known since 4
+        BugginessLabels labels = new BugginessLabels(Map.of(BAR, List.of(new int[]{1, 5, 6}, new int[]{3, 8, 4})));
+
+        assertEquals(6, labels.buggySince("A.java", "bar(int)", 1));
+        assertEquals(6, labels.buggySince("A.java", "bar(int)", 2));
+        assertEquals(4, labels.buggySince("A.java", "bar(int)", 3));
+        assertEquals(4, labels.buggySince("A.java", "bar(int)", 7));
+        assertEquals(NEVER, labels.buggySince("A.java", "bar(int)", 8));
+    }
+
+    @Test
+    void adjacentIntervalsKnownTogetherBehaveAsOne() {
+        BugginessLabels labels = new BugginessLabels(Map.of(FOO, List.of(new int[]{1, 3, 4}, new int[]{3, 5, 4})));
+
+        for (int release = 1; release < 5; release++)
+            assertTrue(labels.isBuggy("A.java", "foo()", release));
+        assertFalse(labels.isBuggy("A.java", "foo()", 5));
+    }
+}
@@ -0,0 +1,73 @@
+package vcs.commit;
+
+import issues.ticket.JiraTicketsManager;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import properties.ProjectConfig;
+import vcs.model.ModifiedMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitCommitManagerTest {
+
+    private static final String A = "class A {\n  void foo() {\n    int x = 1;\n  }\n\n  void bar() {\n    int y = 2;\n  }\n}\n";
+
+    // Nothing listens there, so the managers retrieve no releases
+    private static final String NO_JIRA = "http://127.0.0.1:1/";
+
+    @TempDir
+    Path repo;
+
+    private RevCommit renameCommit() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(repo.toFile()).call()) {
+            Files.writeString(repo.resolve("A.java"), A);
+            git.add().addFilepattern("A.java").call();
+            git.commit().setMessage("Add A").call();
+
+            Files.move(repo.resolve("A.java"), repo.resolve("B.java"));
+            git.add().addFilepattern("B.java").call();
+            git.rm().addFilepattern("A.java").call();
+            return git.commit().setMessage("Rename A").call();
+        }
+    }
+
+    private GitCommitManager commitManager() throws IOException {
+        ProjectConfig project = new ProjectConfig("BOOKKEEPER", NO_JIRA, repo.toString(), List.of("BOOKKEEPER"));
+        return new GitCommitManager(new JiraTicketsManager(project), project);
+    }
+
+    @Test
+    void unchangedMethodsOfRenamedFilesAreNotModified() throws IOException, GitAPIException {
+        RevCommit rename = renameCommit();
+        GitCommitManager commitManager = commitManager();
+
+        assertTrue(commitManager.getModifiedJavaMethods(rename.getName()).isEmpty());
+        assertTrue(commitManager.analyzeCommits(List.of(rename), 1).get(rename.getName()).isEmpty());
+        commitManager.close();
+    }
+
+    @Test
+    void renamesAreReportedWhenTrackingMoves() throws IOException, GitAPIException {
+        RevCommit rename = renameCommit();
+        GitCommitManager commitManager = commitManager();
+
+        List<ModifiedMethod> moved = commitManager.analyzeCommits(List.of(rename), 2, true).get(rename.getName());
+        commitManager.close();
+
+        assertEquals(2, moved.size());
+        for (ModifiedMethod method : moved) {
+            assertEquals(GitCommitManager.ModificationType.RENAMED, method.getModificationType());
+            assertEquals("B.java", method.getFilePath());
+            assertEquals("A.java", method.getOldFilePath());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package vcs.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vcs.commit.GitCommitManager.ModificationType;
+import vcs.model.ModifiedMethod;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MethodHistoryStoreTest {
+
+    private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+    private static final String HEAD = "89abcdef0123456789abcdef0123456789abcdef";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackTheSavedChanges() throws IOException {
+        Path file = dir.resolve("history.bin");
+        MethodHistoryStore store = MethodHistoryStore.open(file);
+        store.addCommit(COMMIT, List.of(
+                new ModifiedMethod("A.java", "Entry.compareTo(Entry<K,V>)", "", ModificationType.MODIFIED),
+                new ModifiedMethod("A.java", "foo()", "", ModificationType.ADDED)));
+        store.save(HEAD);
+
+        MethodHistoryStore reopened = MethodHistoryStore.open(file);
+        assertEquals(HEAD, reopened.getLastHead());
+        assertEquals(1, reopened.size());
+        assertEquals(ModificationType.MODIFIED, reopened.getChangesToMethod("A.java", "Entry.compareTo(Entry<K,V>)").get(0).getModificationType());
+        assertEquals(2, reopened.getChangesInCommit(COMMIT).size());
+    }
+
+    @Test
+    void rebuildsIndexesOfAnOlderVersion() throws IOException {
+        // A version 1 index, with signatures not qualified by their nested types
+        Path file = dir.resolve("history.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x4D485331);
+            out.writeInt(1);
+            out.writeUTF(HEAD);
+            out.writeInt(0);
+            out.writeInt(0);
+        }
+
+        MethodHistoryStore store = MethodHistoryStore.open(file);
+        assertNull(store.getLastHead());
+        assertEquals(0, store.size());
+        assertFalse(store.contains(COMMIT));
+    }
+}
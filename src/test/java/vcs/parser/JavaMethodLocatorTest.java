@@ -0,0 +1,112 @@
+package vcs.parser;
+
+import org.junit.jupiter.api.Test;
+import vcs.model.MethodSpan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaMethodLocatorTest {
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream is = JavaMethodLocatorTest.class.getResourceAsStream(name + ".java.txt")) {
+            assertNotNull(is, "Missing fixture " + name);
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<String> signatures(String source) {
+        return JavaMethodLocator.locate(source).stream().map(MethodSpan::getSignature).toList();
+    }
+
+    @Test
+    void keepsWordsOfParameterTypesApart() throws IOException {
+        assertEquals(List.of(
+                "sum(List<? extends Number>)",
+                "addAll(java.util.List<? super Integer>,Map<String,List<Integer>>)",
+                "max(T,T...)",
+                "matrix(int[][],String[])",
+                "toString()"), signatures(fixture("Generics")));
+    }
+
+    @Test
+    void qualifiesMethodsOfNestedTypes() throws IOException {
+        List<String> signatures = signatures(fixture("Nested"));
+
+        assertEquals(List.of(
+                "run()",
+                "$1.run()",
+                "schedule()",
+                "$2.run()",
+                "Local.run()",
+                "Inner.run()",
+                "Inner.Deeper.run()",
+                "Color.RED.run()",
+                "Color.GREEN.run()",
+                "Color.Color()",
+                "Color.Color(int)",
+                "Color.run()",
+                "Helper.run()"), signatures);
+        assertEquals(signatures.size(), new HashSet<>(signatures).size());
+    }
+
+    @Test
+    void nestedSpansLieInsideTheEnclosingMethod() throws IOException {
+        List<MethodSpan> methods = JavaMethodLocator.locate(fixture("Nested"));
+        MethodSpan outer = methods.get(0);
+        MethodSpan anonymous = methods.get(1);
+
+        assertEquals("run", anonymous.getName());
+        assertTrue(outer.getStart() < anonymous.getStart() && anonymous.getEnd() < outer.getEnd());
+    }
+
+    @Test
+    void locatesCompactRecordConstructors() throws IOException {
+        String source = fixture("Records");
+        List<MethodSpan> methods = JavaMethodLocator.locate(source);
+
+        assertEquals(List.of("Point(int,int)", "Point(int)", "sum()", "Pair.Pair(A,B)"),
+                methods.stream().map(MethodSpan::getSignature).toList());
+        MethodSpan compact = methods.get(0);
+        assertEquals("Point", compact.getName());
+        assertTrue(compact.textOf(source).startsWith("public Point {"));
+        assertEquals(5, compact.getStartLine());
+        assertEquals(7, compact.getEndLine());
+    }
+
+    @Test
+    void ignoresBracesInLiteralsCommentsAndInitializers() throws IOException {
+        assertEquals(List.of(
+                "$1.get()",
+                "block()",
+                "lambdas(java.util.List<String>)",
+                "generic(Class<T>)"), signatures(fixture("Tricky")));
+    }
+
+    @Test
+    void reportsLinesAndTextOfTheDeclaration() throws IOException {
+        String source = fixture("Generics");
+        MethodSpan sum = JavaMethodLocator.locate(source).get(0);
+
+        assertEquals("sum", sum.getName());
+        assertEquals(8, sum.getStartLine());
+        assertEquals(10, sum.getEndLine());
+        String text = sum.textOf(source);
+        assertTrue(text.startsWith("public double sum("));
+        assertTrue(text.endsWith("}"));
+        assertEquals('{', source.charAt(sum.getBodyStart()));
+    }
+
+    @Test
+    void toleratesUnbalancedSources() {
+        assertEquals(List.of("broken()"), signatures("class A { void broken() { if (x) { } }"));
+        assertEquals(List.of(), signatures("} } class"));
+    }
+}
@@ -0,0 +1,72 @@
+package vcs.parser;
+
+import org.junit.jupiter.api.Test;
+import vcs.model.TicketReferences;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketIdScannerTest {
+
+    private final TicketIdScanner scanner = new TicketIdScanner(List.of("BOOKKEEPER", "ZOOKEEPER", "KEEPER"));
+
+    @Test
+    void doesNotMatchAKeyInsideAnotherKey() {
+        assertEquals(List.of("ZOOKEEPER-77"), scanner.scan("ZOOKEEPER-77").getTicketKeys());
+        assertEquals(List.of("BOOKKEEPER-12"), scanner.scan("BOOKKEEPER-12: fix the ledger").getTicketKeys());
+        assertEquals(List.of("KEEPER-5"), scanner.scan("KEEPER-5").getTicketKeys());
+    }
+
+    @Test
+    void requiresAWordBoundaryBeforeTheKey() {
+        assertTrue(scanner.scan("XBOOKKEEPER-1 and 2KEEPER-3").isEmpty());
+        // Grouped by key, in the order of the configured keys
+        assertEquals(List.of("BOOKKEEPER-4", "KEEPER-9"),
+                scanner.scan("(KEEPER-9),BOOKKEEPER-4.").getTicketKeys());
+    }
+
+    @Test
+    void matchesKeysCaseInsensitively() {
+        TicketReferences references = scanner.scan("bookkeeper-10 and Zookeeper-11");
+
+        assertEquals(List.of("BOOKKEEPER-10", "ZOOKEEPER-11"), references.getTicketKeys());
+        assertArrayEquals(new int[]{10}, references.getNumbers("bookkeeper"));
+        assertArrayEquals(new int[]{11}, references.getNumbers("ZooKeeper"));
+        assertArrayEquals(new int[0], references.getNumbers("HBASE"));
+    }
+
+    @Test
+    void normalizesConfiguredKeys() {
+        TicketIdScanner lowerCase = new TicketIdScanner(List.of("bookkeeper"));
+
+        assertEquals(List.of("BOOKKEEPER"), lowerCase.getProjectKeys());
+        assertEquals(List.of("BOOKKEEPER-7"), lowerCase.scan("BookKeeper-7").getTicketKeys());
+    }
+
+    @Test
+    void keepsUnqualifiedReferencesApart() {
+        TicketReferences references = scanner.scan("Fixes ISSUE 123, see #45 and issue 6");
+
+        assertTrue(references.getTicketKeys().isEmpty());
+        assertArrayEquals(new int[]{123, 45, 6}, references.getUnqualifiedNumbers());
+        assertTrue(scanner.scan("ISSUE123, ISSUE  12, TISSUE 3, # 4").isEmpty());
+    }
+
+    @Test
+    void deduplicatesInOrderOfAppearance() {
+        TicketReferences references = scanner.scan("BOOKKEEPER-2 BOOKKEEPER-1 bookkeeper-2 #8 ISSUE 8 KEEPER-2");
+
+        assertEquals(List.of("BOOKKEEPER-2", "BOOKKEEPER-1", "KEEPER-2"), references.getTicketKeys());
+        assertArrayEquals(new int[]{8}, references.getUnqualifiedNumbers());
+    }
+
+    @Test
+    void ignoresPrefixesWithoutANumber() {
+        assertTrue(scanner.scan("BOOKKEEPER- and BOOKKEEPER-x, ISSUE #").isEmpty());
+        assertTrue(scanner.scan("BOOKKEEPER-1234567890").isEmpty());
+        assertTrue(scanner.scan("").isEmpty());
+    }
+}
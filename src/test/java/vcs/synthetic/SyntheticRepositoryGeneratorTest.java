@@ -0,0 +1,75 @@
+package vcs.synthetic;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticRepositoryGeneratorTest {
+
+    private static final int COMMITS = 80;
+
+    @TempDir
+    Path directory;
+
+    private static SyntheticRepositoryGenerator generator(long seed) {
+        SyntheticRepositoryGenerator generator = new SyntheticRepositoryGenerator();
+        generator.setCommits(COMMITS);
+        generator.setFiles(10);
+        generator.setMethodsPerFile(4);
+        generator.setRenameRate(0.2);
+        generator.setMergeRate(0.2);
+        generator.setSeed(seed);
+        return generator;
+    }
+
+    @Test
+    void isReproducibleFromTheSeed() throws IOException {
+        String head = generator(7).generate(directory.resolve("a"));
+
+        assertEquals(head, generator(7).generate(directory.resolve("b")));
+        assertNotEquals(head, generator(8).generate(directory.resolve("c")));
+    }
+
+    @Test
+    void generatesTheCommitsWithRenamesAndMerges() throws IOException {
+        String head = generator(7).generate(directory);
+
+        int commits = 0;
+        int merges = 0;
+        int renames = 0;
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(directory.resolve(".git").toFile()).build();
+             RevWalk revWalk = new RevWalk(repository);
+             DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            assertEquals(head, repository.resolve(Constants.HEAD).getName());
+            df.setRepository(repository);
+            df.setDetectRenames(true);
+
+            revWalk.markStart(revWalk.parseCommit(repository.resolve(Constants.HEAD)));
+            for (RevCommit commit : revWalk) {
+                commits++;
+                if (commit.getParentCount() > 1) merges++;
+                if (commit.getParentCount() == 0) continue;
+                for (DiffEntry diff : df.scan(revWalk.parseCommit(commit.getParent(0)).getTree(), commit.getTree()))
+                    if (diff.getChangeType() == DiffEntry.ChangeType.RENAME) renames++;
+            }
+        }
+
+        assertEquals(COMMITS, commits);
+        assertTrue(merges > 0, "no merge commits");
+        assertTrue(renames > 0, "no renames");
+    }
+}